@@ -0,0 +1,67 @@
+package net.coderodde.bio.msa;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the complete alignment runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlignmentBenchmark {
+
+    private static final AlignmentOptions UPPER_BOUND_PRUNING = 
+            AlignmentOptions.getDefaultOptions().withUpperBoundPruning(true);
+
+    @Param({"3", "4"})
+    int sequences;
+
+    @Param({"40", "80"})
+    int length;
+
+    @Param({"0.5", "0.9"})
+    double similarity;
+
+    private MultipleSequenceAlignmentInstance instance;
+
+    @Setup
+    public void setUp() {
+        instance = BenchmarkSequences.createInstance(sequences, 
+                                                     length, 
+                                                     similarity);
+    }
+
+    @Benchmark
+    public Alignment align() {
+        return instance.align();
+    }
+
+    @Benchmark
+    public Alignment alignUpperBoundPruning() {
+        return instance.align(UPPER_BOUND_PRUNING);
+    }
+
+    @Benchmark
+    public Alignment alignAnchored() {
+        return instance.alignAnchored(1);
+    }
+
+    @Benchmark
+    public Alignment alignBrute() {
+        return instance.alignBrute();
+    }
+}
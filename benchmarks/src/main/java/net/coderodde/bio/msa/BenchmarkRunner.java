@@ -0,0 +1,24 @@
+package net.coderodde.bio.msa;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so that every result 
+ * comes with its allocation rate. Accepts the usual JMH command line 
+ * options, e.g. a benchmark name pattern or {@code -p sequences=4}.
+ */
+public final class BenchmarkRunner {
+
+    public static void main(String[] args) 
+            throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
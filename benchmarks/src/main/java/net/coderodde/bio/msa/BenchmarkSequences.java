@@ -0,0 +1,80 @@
+package net.coderodde.bio.msa;
+
+import java.util.Random;
+
+/**
+ * This class generates reproducible benchmark sequences. Each sequence is 
+ * derived from a common random ancestor by substitutions, insertions and 
+ * deletions, so that the similarity parameter controls how hard the 
+ * alignment is.
+ */
+final class BenchmarkSequences {
+
+    private static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+    private static final long SEED = 20161017L;
+
+    private BenchmarkSequences() {}
+
+    /**
+     * Generates the sequences.
+     * 
+     * @param count      the number of sequences.
+     * @param length     the length of the common ancestor.
+     * @param similarity the probability of keeping an ancestor residue.
+     * @return the sequences.
+     */
+    static String[] generate(int count, int length, double similarity) {
+        Random random = new Random(SEED);
+        char[] ancestor = new char[length];
+
+        for (int i = 0; i < length; ++i) {
+            ancestor[i] = randomResidue(random);
+        }
+
+        String[] sequences = new String[count];
+
+        for (int i = 0; i < count; ++i) {
+            StringBuilder sb = new StringBuilder(length);
+
+            for (char residue : ancestor) {
+                if (random.nextDouble() < similarity) {
+                    sb.append(residue);
+                    continue;
+                }
+
+                // Split the mutations evenly between substitutions, 
+                // insertions and deletions:
+                switch (random.nextInt(3)) {
+                    case 0:
+                        sb.append(randomResidue(random));
+                        break;
+
+                    case 1:
+                        sb.append(residue).append(randomResidue(random));
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+
+            sequences[i] = sb.toString();
+        }
+
+        return sequences;
+    }
+
+    static MultipleSequenceAlignmentInstance createInstance(
+            int count, 
+            int length, 
+            double similarity) {
+        return new MultipleSequenceAlignmentInstance(
+                PAM250CostMatrix.getPAM250CostMatrix(),
+                4,
+                generate(count, length, similarity));
+    }
+
+    private static char randomResidue(Random random) {
+        return AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length()));
+    }
+}
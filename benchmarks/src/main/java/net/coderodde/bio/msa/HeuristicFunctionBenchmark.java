@@ -0,0 +1,55 @@
+package net.coderodde.bio.msa;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the computation of the pairwise heuristic tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicFunctionBenchmark {
+
+    @Param({"4", "8"})
+    int sequences;
+
+    @Param({"100", "400"})
+    int length;
+
+    @Param({"0.5", "0.9"})
+    double similarity;
+
+    private MultipleSequenceAlignmentInstance instance;
+    private HeuristicFunctionComputer computer;
+    private SearchBudget budget;
+
+    @Setup
+    public void setUp() {
+        instance = BenchmarkSequences.createInstance(sequences, 
+                                                     length, 
+                                                     similarity);
+        computer = 
+                new HeuristicFunctionComputer(
+                        AlignmentOptions.getDefaultOptions());
+        budget = new SearchBudget(AlignmentOptions.getDefaultOptions());
+    }
+
+    @Benchmark
+    public HeuristicFunction computeHeuristicFunction() {
+        return computer.computeHeuristicFunction(instance, budget);
+    }
+}
@@ -0,0 +1,87 @@
+package net.coderodde.bio.msa;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the lattice primitives of the search: the hop weights and the
+ * child generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatticeBenchmark {
+
+    /**
+     * The number of random nodes cycled through.
+     */
+    private static final int NODES = 1024;
+
+    @Param({"3", "5", "8"})
+    int sequences;
+
+    @Param({"100"})
+    int length;
+
+    @Param({"0.5", "0.9"})
+    double similarity;
+
+    private MultipleSequenceAlignmentInstance instance;
+    private LatticeNode[] nodes;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        instance = BenchmarkSequences.createInstance(sequences, 
+                                                     length, 
+                                                     similarity);
+        String[] sequenceArray = instance.getSequenceArray();
+        Random random = new Random(sequences);
+        nodes = new LatticeNode[NODES];
+
+        // Random inner nodes, so that every node has all of its children:
+        for (int i = 0; i < NODES; ++i) {
+            int[] coordinates = new int[sequenceArray.length];
+
+            for (int j = 0; j < coordinates.length; ++j) {
+                coordinates[j] = random.nextInt(sequenceArray[j].length());
+            }
+
+            nodes[i] = new LatticeNode(instance, coordinates);
+        }
+    }
+
+    @Benchmark
+    public LatticeNode[] getChildren() {
+        return nextNode().getChildren();
+    }
+
+    @Benchmark
+    public void getWeight(Blackhole blackhole) {
+        LatticeNode node = nextNode();
+
+        for (LatticeNode child : node.getChildren()) {
+            blackhole.consume(instance.getWeight(node, child));
+        }
+    }
+
+    private LatticeNode nextNode() {
+        index = (index + 1) & (NODES - 1);
+        return nodes[index];
+    }
+}
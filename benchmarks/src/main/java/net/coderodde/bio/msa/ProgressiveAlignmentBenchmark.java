@@ -0,0 +1,49 @@
+package net.coderodde.bio.msa;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks progressive alignment of sequence families.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ProgressiveAlignmentBenchmark {
+
+    @Param({"50", "200"})
+    int sequences;
+
+    @Param({"200"})
+    int length;
+
+    @Param({"0.5", "0.9"})
+    double similarity;
+
+    private MultipleSequenceAlignmentInstance instance;
+
+    @Setup
+    public void setUp() {
+        instance = BenchmarkSequences.createInstance(sequences, 
+                                                     length, 
+                                                     similarity);
+    }
+
+    @Benchmark
+    public Alignment alignProgressive() {
+        return instance.alignProgressive();
+    }
+}
@@ -0,0 +1,270 @@
+package net.coderodde.bio.msa;
+
+public class Alignment {
+
+    /**
+     * The unaligned sequences.
+     */
+    private final String[] sequences;
+
+    /**
+     * The gap bit masks of the rows. The bit {@code j} of 
+     * {@code gapMasks[i]} is set if and only if the ith row has a gap in the 
+     * jth column.
+     */
+    private final long[][] gapMasks;
+
+    /**
+     * The number of columns.
+     */
+    private final int length;
+
+    private final int cost;
+
+    /**
+     * A proven lower bound on the cost of an optimal alignment. Equals 
+     * {@code cost} for alignments known to be optimal, and 
+     * {@link BudgetExceededException#NO_LOWER_BOUND} if no bound is proven.
+     */
+    private final int lowerBound;
+
+    private final SearchStatistics statistics;
+
+    Alignment(String[] alignment, int cost) {
+        this(alignment, cost, cost);
+    }
+
+    Alignment(String[] alignment, int cost, int lowerBound) {
+        this.sequences = new String[alignment.length];
+        this.gapMasks = new long[alignment.length][];
+        this.length = alignment.length == 0 ? 0 : alignment[0].length();
+        this.cost = cost;
+        this.lowerBound = lowerBound;
+        this.statistics = SearchStatistics.EMPTY;
+
+        for (int i = 0; i < alignment.length; ++i) {
+            StringBuilder sb = new StringBuilder(length);
+            gapMasks[i] = new long[getWords(length)];
+
+            for (int j = 0; j < length; ++j) {
+                char c = alignment[i].charAt(j);
+
+                if (c == AminoAcidAlphabet.GAP_CHARACTER) {
+                    gapMasks[i][j >>> 6] |= 1L << j;
+                } else {
+                    sb.append(c);
+                }
+            }
+
+            sequences[i] = sb.toString();
+        }
+    }
+
+    Alignment(String[] sequences, 
+              long[][] gapMasks, 
+              int length, 
+              int cost, 
+              int lowerBound) {
+        this(sequences, 
+             gapMasks, 
+             length, 
+             cost, 
+             lowerBound, 
+             SearchStatistics.EMPTY);
+    }
+
+    private Alignment(String[] sequences, 
+                      long[][] gapMasks, 
+                      int length, 
+                      int cost, 
+                      int lowerBound,
+                      SearchStatistics statistics) {
+        this.sequences = sequences;
+        this.gapMasks = gapMasks;
+        this.length = length;
+        this.cost = cost;
+        this.lowerBound = lowerBound;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the alignment of {@code head} followed by {@code tail}.
+     * 
+     * @param head the alignment of the prefixes.
+     * @param tail the alignment of the suffixes.
+     * @param cost the cost of the joined alignment.
+     * @return the joined alignment.
+     */
+    static Alignment concatenate(Alignment head, Alignment tail, int cost) {
+        int rows = head.sequences.length;
+        int length = head.length + tail.length;
+        String[] sequences = new String[rows];
+        long[][] gapMasks = new long[rows][getWords(length)];
+
+        for (int i = 0; i < rows; ++i) {
+            sequences[i] = head.sequences[i] + tail.sequences[i];
+            System.arraycopy(head.gapMasks[i], 0, 
+                             gapMasks[i], 0, 
+                             head.gapMasks[i].length);
+
+            for (int j = 0; j < tail.length; ++j) {
+                if (tail.isGap(i, j)) {
+                    int column = head.length + j;
+                    gapMasks[i][column >>> 6] |= 1L << column;
+                }
+            }
+        }
+
+        return new Alignment(sequences, gapMasks, length, cost, cost);
+    }
+
+    static int getWords(int length) {
+        return (length + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Returns the aligned rows. Each call builds the rows anew; use 
+     * {@link #getRowCount()}, {@link #getLength()} and 
+     * {@link #getCharacter(int, int)} to avoid it.
+     * 
+     * @return the aligned rows.
+     */
+    public String[] getAlignemnt() {
+        String[] alignment = new String[sequences.length];
+
+        for (int i = 0; i < alignment.length; ++i) {
+            char[] row = new char[length];
+
+            for (int j = 0, residue = 0; j < length; ++j) {
+                row[j] = isGap(i, j) ? 
+                         AminoAcidAlphabet.GAP_CHARACTER :
+                         sequences[i].charAt(residue++);
+            }
+
+            alignment[i] = new String(row);
+        }
+
+        return alignment;
+    }
+
+    public int getRowCount() {
+        return sequences.length;
+    }
+
+    /**
+     * Returns the number of columns in this alignment.
+     * 
+     * @return the number of columns.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public boolean isGap(int row, int column) {
+        return (gapMasks[row][column >>> 6] & (1L << column)) != 0;
+    }
+
+    /**
+     * Returns the character of the given row in the given column. Runs in 
+     * time linear in {@code column}; scan the rows with 
+     * {@link #isGap(int, int)} and {@link #getSequence(int)} instead when 
+     * visiting every column.
+     * 
+     * @param row    the row index.
+     * @param column the column index.
+     * @return the residue or the gap character.
+     */
+    public char getCharacter(int row, int column) {
+        if (isGap(row, column)) {
+            return AminoAcidAlphabet.GAP_CHARACTER;
+        }
+
+        int residue = 0;
+
+        for (int j = 0; j < column; ++j) {
+            if (!isGap(row, j)) {
+                residue++;
+            }
+        }
+
+        return sequences[row].charAt(residue);
+    }
+
+    /**
+     * Returns the unaligned sequence of the given row.
+     * 
+     * @param row the row index.
+     * @return the sequence without gaps.
+     */
+    public String getSequence(int row) {
+        return sequences[row];
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns a proven lower bound on the optimal cost, or 
+     * {@code Integer.MIN_VALUE} if none is proven.
+     * 
+     * @return the lower bound.
+     */
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Returns a copy of this alignment with another lower bound.
+     * 
+     * @param lowerBound the new lower bound.
+     * @return the copy.
+     */
+    Alignment withLowerBound(int lowerBound) {
+        return new Alignment(sequences, 
+                             gapMasks, 
+                             length, 
+                             cost, 
+                             lowerBound, 
+                             statistics);
+    }
+
+    /**
+     * Returns the statistics of the run that produced this alignment. The 
+     * intermediate alignments of anytime search carry empty statistics.
+     * 
+     * @return the search statistics.
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    Alignment withStatistics(SearchStatistics statistics) {
+        return new Alignment(sequences, 
+                             gapMasks, 
+                             length, 
+                             cost, 
+                             lowerBound, 
+                             statistics);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        String separator = "";
+
+        for (String row : getAlignemnt()) {
+            sb.append(separator).append(row);
+            separator = "\n";
+        }
+
+        sb.append("\nCost: ").append(cost);
+
+        if (lowerBound != cost && 
+                lowerBound != BudgetExceededException.NO_LOWER_BOUND) {
+            sb.append("\nLower bound: ").append(lowerBound);
+        }
+
+        return sb.toString();
+    }
+}
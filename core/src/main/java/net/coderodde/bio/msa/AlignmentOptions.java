@@ -0,0 +1,286 @@
+package net.coderodde.bio.msa;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class holds the settings of a single alignment run. Instances are
+ * immutable; each {@code with...} method returns a modified copy.
+ */
+public final class AlignmentOptions {
+
+    private static final AlignmentOptions DEFAULT_OPTIONS =
+            new AlignmentOptions();
+
+    /**
+     * The executor computing the pairwise heuristic tables.
+     */
+    private Executor heuristicExecutor = ForkJoinPool.commonPool();
+
+    /**
+     * The number of bytes the three-way heuristic tables may take. Zero
+     * disables the three-way heuristic.
+     */
+    private long tripleHeuristicMemory;
+
+    /**
+     * The cache of pairwise heuristic tables, or {@code null} if the tables
+     * are always computed.
+     */
+    private PairwiseTableCache pairwiseTableCache;
+
+    /**
+     * The maximum duration of a run, or {@code null} for no limit.
+     */
+    private Duration timeBudget;
+
+    private long expansionBudget = Long.MAX_VALUE;
+    private long memoryBudget = Long.MAX_VALUE;
+    private CancellationToken cancellationToken;
+    private boolean upperBoundPruning;
+    private boolean sequenceCollapsing;
+
+    /**
+     * The number of substitutions up to which sequences of equal length are
+     * collapsed with each other.
+     */
+    private int collapsingSubstitutions;
+
+    private AlignmentOptions() {}
+
+    private AlignmentOptions(AlignmentOptions other) {
+        this.heuristicExecutor = other.heuristicExecutor;
+        this.tripleHeuristicMemory = other.tripleHeuristicMemory;
+        this.pairwiseTableCache = other.pairwiseTableCache;
+        this.timeBudget = other.timeBudget;
+        this.expansionBudget = other.expansionBudget;
+        this.memoryBudget = other.memoryBudget;
+        this.cancellationToken = other.cancellationToken;
+        this.upperBoundPruning = other.upperBoundPruning;
+        this.sequenceCollapsing = other.sequenceCollapsing;
+        this.collapsingSubstitutions = other.collapsingSubstitutions;
+    }
+
+    public static AlignmentOptions getDefaultOptions() {
+        return DEFAULT_OPTIONS;
+    }
+
+    public Executor getHeuristicExecutor() {
+        return heuristicExecutor;
+    }
+
+    public AlignmentOptions withHeuristicExecutor(Executor heuristicExecutor) {
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.heuristicExecutor =
+                Objects.requireNonNull(heuristicExecutor,
+                                       "Heuristic executor is null");
+        return options;
+    }
+
+    public long getTripleHeuristicMemory() {
+        return tripleHeuristicMemory;
+    }
+
+    /**
+     * Returns options that tighten the heuristic with exact three-way tables
+     * over disjoint triples of sequences, taking at most {@code bytes} bytes
+     * in total. The pairs not covered by a triple keep their pairwise tables;
+     * the covered pairs have none, so the heuristic takes at most 
+     * {@code bytes} bytes more than the pairwise one.
+     *
+     * @param bytes the memory budget of the three-way tables.
+     * @return the modified options.
+     */
+    public AlignmentOptions withTripleHeuristicMemory(long bytes) {
+        if (bytes < 0L) {
+            throw new IllegalArgumentException(
+                    "Negative three-way heuristic memory: " + bytes);
+        }
+
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.tripleHeuristicMemory = bytes;
+        return options;
+    }
+
+    public PairwiseTableCache getPairwiseTableCache() {
+        return pairwiseTableCache;
+    }
+
+    /**
+     * Returns options that look the pairwise heuristic tables up in
+     * {@code pairwiseTableCache} before computing them, and store the
+     * computed tables in it.
+     *
+     * @param pairwiseTableCache the cache, or {@code null} for no cache.
+     * @return the modified options.
+     */
+    public AlignmentOptions withPairwiseTableCache(
+            PairwiseTableCache pairwiseTableCache) {
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.pairwiseTableCache = pairwiseTableCache;
+        return options;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * Returns options that stop the search once a run took
+     * {@code timeBudget}. A stopped run returns a fallback alignment
+     * together with the best lower bound proven, which makes
+     * {@link SearchStatistics#isBudgetExceeded()} return {@code true}.
+     *
+     * @param timeBudget the maximum duration of a run, or {@code null} for no
+     *                   limit.
+     * @return the modified options.
+     */
+    public AlignmentOptions withTimeBudget(Duration timeBudget) {
+        if (timeBudget != null && timeBudget.isNegative()) {
+            throw new IllegalArgumentException(
+                    "Negative time budget: " + timeBudget);
+        }
+
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.timeBudget = timeBudget;
+        return options;
+    }
+
+    public long getExpansionBudget() {
+        return expansionBudget;
+    }
+
+    /**
+     * Returns options that stop the search after about {@code expansions}
+     * node expansions.
+     *
+     * @param expansions the maximum number of expansions.
+     * @return the modified options.
+     */
+    public AlignmentOptions withExpansionBudget(long expansions) {
+        if (expansions < 0L) {
+            throw new IllegalArgumentException(
+                    "Negative expansion budget: " + expansions);
+        }
+
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.expansionBudget = expansions;
+        return options;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns options that stop the search once its state tables and open
+     * lists, together with the heuristic tables, are estimated to take more
+     * than {@code bytes} bytes. The heuristic tables are charged before they
+     * are built; if they do not fit, the run returns the progressive 
+     * alignment. Growing a state table briefly takes three times its size, 
+     * so the budget should leave room for that.
+     *
+     * @param bytes the maximum estimated size of the search structures.
+     * @return the modified options.
+     */
+    public AlignmentOptions withMemoryBudget(long bytes) {
+        if (bytes < 0L) {
+            throw new IllegalArgumentException(
+                    "Negative memory budget: " + bytes);
+        }
+
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.memoryBudget = bytes;
+        return options;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Returns options whose runs stop soon after {@code cancellationToken}
+     * is cancelled, just as if a budget was exceeded.
+     *
+     * @param cancellationToken the token, or {@code null} for none.
+     * @return the modified options.
+     */
+    public AlignmentOptions withCancellationToken(
+            CancellationToken cancellationToken) {
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.cancellationToken = cancellationToken;
+        return options;
+    }
+
+    public boolean isUpperBoundPruning() {
+        return upperBoundPruning;
+    }
+
+    /**
+     * Returns options that make {@link MultipleSequenceAlignmentInstance#align(
+     * AlignmentOptions)} compute a quick alignment first, and never store a 
+     * node whose f-value exceeds its cost. The result stays optimal. This 
+     * shrinks the open list the most when the sequences are closely related,
+     * so that the quick alignment is nearly optimal.
+     * 
+     * @param upperBoundPruning whether to prune by an upper bound.
+     * @return the modified options.
+     */
+    public AlignmentOptions withUpperBoundPruning(boolean upperBoundPruning) {
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.upperBoundPruning = upperBoundPruning;
+        return options;
+    }
+
+    public boolean isSequenceCollapsing() {
+        return sequenceCollapsing;
+    }
+
+    /**
+     * Returns options that make {@link MultipleSequenceAlignmentInstance#align(
+     * AlignmentOptions)} align each group of identical sequences as a single
+     * dimension weighted by the size of the group, and copy its row to every
+     * member afterwards. Each duplicate removed halves the number of 
+     * successors of a lattice node. The result is optimal if aligning a 
+     * sequence with itself residue by residue is optimal, as it is under 
+     * PAM250; otherwise the lower bound accounts for the difference.
+     * 
+     * @param sequenceCollapsing whether to collapse identical sequences.
+     * @return the modified options.
+     */
+    public AlignmentOptions withSequenceCollapsing(
+            boolean sequenceCollapsing) {
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.sequenceCollapsing = sequenceCollapsing;
+        return options;
+    }
+
+    public int getCollapsingSubstitutions() {
+        return collapsingSubstitutions;
+    }
+
+    /**
+     * Returns options that, together with sequence collapsing, also collapse
+     * sequences of equal length differing in at most {@code substitutions} 
+     * positions into the group of the first such sequence. The members of a
+     * group share the columns of its first sequence, so the result is no 
+     * longer optimal in general; its cost is the exact cost of the 
+     * alignment returned, and its lower bound the sum of the optimal 
+     * pairwise costs.
+     * 
+     * @param substitutions the maximum number of differing positions.
+     * @return the modified options.
+     */
+    public AlignmentOptions withCollapsingSubstitutions(int substitutions) {
+        if (substitutions < 0) {
+            throw new IllegalArgumentException(
+                    "Negative number of substitutions: " + substitutions);
+        }
+
+        AlignmentOptions options = new AlignmentOptions(this);
+        options.collapsingSubstitutions = substitutions;
+        return options;
+    }
+}
@@ -0,0 +1,704 @@
+package net.coderodde.bio.msa;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements a long-running local alignment service over HTTP. A
+ * client posts the sequences in FASTA format to {@code /align} and receives
+ * the alignment in Clustal format, with its cost and lower bound in the
+ * {@code X-Alignment-Cost} and {@code X-Alignment-Lower-Bound} headers. The
+ * query parameters are
+ * <ul>
+ *   <li>{@code method}: {@code exact} or {@code progressive}; by default the
+ *       families of more than {@link App#MAXIMUM_EXACT_SEQUENCES} sequences
+ *       are aligned progressively and the others exactly. Larger families
+ *       are never aligned exactly,</li>
+ *   <li>{@code format}: {@code clustal} or {@code fasta},</li>
+ *   <li>{@code alphabet}: {@code protein}, aligned under PAM250, or
+ *       {@code dna} or {@code rna}, aligned under the default
+ *       {@link NucleotideCostMatrix},</li>
+ *   <li>{@code gap}: the gap penalty, 4 by default,</li>
+ *   <li>{@code timeout}: the time budget of the run in milliseconds.</li>
+ * </ul>
+ * <p>
+ * The exact alignments run under the budgets of the options. If these set
+ * no time or memory budget, the server sets a time budget of
+ * {@link #DEFAULT_TIME_BUDGET} and a memory budget of a quarter of the heap
+ * divided among the workers, so that a hard job ends with the greedy
+ * fallback alignment instead of holding its worker for good.
+ * <p>
+ * The connections are handled on virtual threads if the runtime provides
+ * them, and on a cached thread pool otherwise. The alignments run on fixed
+ * pools of worker threads. At most {@code maximumPendingJobs} jobs are
+ * admitted at a time, counting both the running and the queued ones; a
+ * request beyond that is answered at once with the status 503, before its
+ * body is read. A body longer than {@link #MAXIMUM_REQUEST_BYTES} bytes is
+ * answered with the status 413. Small jobs
+ * are not handed to the pool of the large ones but collected into a queue
+ * of their own, which the threads of a second, smaller pool drain in
+ * batches. Hence a burst of small jobs neither waits behind large ones nor
+ * pays a handoff per job.
+ */
+public final class AlignmentServer implements AutoCloseable {
+
+    /**
+     * The default maximum total size of the cached pairwise tables.
+     */
+    public static final long DEFAULT_CACHE_BYTES = 1L << 28;
+
+    /**
+     * The maximum length of a request body.
+     */
+    public static final long MAXIMUM_REQUEST_BYTES = 1L << 24;
+
+    /**
+     * The time budget of the exact alignments if the options set none.
+     */
+    public static final Duration DEFAULT_TIME_BUDGET = Duration.ofSeconds(60);
+
+    private static final int DEFAULT_GAP_PENALTY = 4;
+
+    private static final Logger LOGGER =
+            Logger.getLogger(AlignmentServer.class.getName());
+
+    /**
+     * The largest estimated work, in lattice or table cells, of a small job.
+     */
+    private static final long MAXIMUM_SMALL_JOB_CELLS = 1L << 16;
+
+    /**
+     * The largest number of small jobs run by a single worker task.
+     */
+    private static final int MAXIMUM_BATCH_SIZE = 64;
+
+    private final HttpServer server;
+    private final ExecutorService connectionExecutor;
+    private final ExecutorService workerExecutor;
+    private final ExecutorService batchExecutor;
+    private final AlignmentOptions options;
+    private final CancellationToken cancellationToken =
+            new CancellationToken();
+    private final Semaphore admission;
+    private final Queue<Job> smallJobs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of tasks draining the small jobs.
+     */
+    private final AtomicInteger batchTasks = new AtomicInteger();
+    private final int maximumBatchTasks;
+
+    /**
+     * Creates a server on {@code address} with about {@code workers} worker
+     * threads, admitting 16 jobs per worker and sharing the pairwise tables
+     * through an in-memory cache of {@link #DEFAULT_CACHE_BYTES} bytes.
+     *
+     * @param address the address to listen on.
+     * @param workers the number of worker threads.
+     * @throws IOException if the address cannot be bound.
+     */
+    public AlignmentServer(InetSocketAddress address, int workers)
+            throws IOException {
+        this(address,
+             workers,
+             16 * workers,
+             AlignmentOptions.getDefaultOptions()
+                     .withPairwiseTableCache(
+                             new MemoryPairwiseTableCache(
+                                     DEFAULT_CACHE_BYTES)));
+    }
+
+    /**
+     * Creates a server on {@code address}. The server replaces the
+     * cancellation token of {@code options} by its own, which is cancelled
+     * on close.
+     *
+     * @param address            the address to listen on.
+     * @param workers            the number of worker threads. A quarter of
+     *                           them, and at least one, run the small jobs;
+     *                           the others, and at least one, the large ones.
+     * @param maximumPendingJobs the maximum number of admitted jobs.
+     * @param options            the alignment options of every job.
+     * @throws IOException if the address cannot be bound.
+     */
+    public AlignmentServer(InetSocketAddress address,
+                           int workers,
+                           int maximumPendingJobs,
+                           AlignmentOptions options) throws IOException {
+        Objects.requireNonNull(address, "Address is null");
+        Objects.requireNonNull(options, "Options are null");
+
+        if (workers < 1) {
+            throw new IllegalArgumentException(
+                    "The number of workers must be positive: " + workers);
+        }
+
+        if (maximumPendingJobs < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum number of pending jobs must be positive: " +
+                    maximumPendingJobs);
+        }
+
+        this.options = withDefaultBudgets(options, workers)
+                .withCancellationToken(cancellationToken);
+        this.admission = new Semaphore(maximumPendingJobs);
+        this.maximumBatchTasks = Math.max(1, workers / 4);
+        this.workerExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, workers - maximumBatchTasks),
+                        createDaemonThreadFactory("Alignment server worker "));
+        this.batchExecutor =
+                Executors.newFixedThreadPool(
+                        maximumBatchTasks,
+                        createDaemonThreadFactory("Alignment server batch "));
+        this.connectionExecutor = createConnectionExecutor();
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(connectionExecutor);
+        this.server.createContext("/align", this::handleAlign);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the address the server listens on, which carries the actual
+     * port if the server was created on port 0.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the server. The running jobs are cancelled and answered with
+     * their fallback alignments.
+     */
+    @Override
+    public void close() {
+        cancellationToken.cancel();
+        server.stop(1);
+        workerExecutor.shutdown();
+        batchExecutor.shutdown();
+        connectionExecutor.shutdown();
+    }
+
+    private void handleAlign(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, "Only POST is supported.\n");
+                return;
+            }
+
+            // Admit the request before reading its body, so that a request
+            // turned away costs next to nothing.
+            if (!admission.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, "Too many pending jobs.\n");
+                return;
+            }
+
+            Request request;
+
+            try {
+                request = parseRequest(exchange);
+                submit(request.job);
+            } catch (RejectedExecutionException ex) {
+                admission.release();
+                send(exchange, 503, "The server is shutting down.\n");
+                return;
+            } catch (RuntimeException | IOException ex) {
+                admission.release();
+                throw ex;
+            }
+
+            Alignment alignment = request.job.result.get();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+            try (AlignmentWriter writer =
+                    new AlignmentWriter(Channels.newChannel(body))) {
+                if (request.fasta) {
+                    writer.writeFasta(alignment, request.names);
+                } else {
+                    writer.writeClustal(alignment, request.names);
+                }
+            }
+
+            exchange.getResponseHeaders().set(
+                    "X-Alignment-Cost",
+                    Integer.toString(alignment.getCost()));
+            exchange.getResponseHeaders().set(
+                    "X-Alignment-Lower-Bound",
+                    Integer.toString(alignment.getLowerBound()));
+            send(exchange, 200, body.toByteArray());
+        } catch (IllegalArgumentException ex) {
+            send(exchange, 400, ex.getMessage() + "\n");
+        } catch (RequestTooLargeException ex) {
+            send(exchange, 413, ex.getMessage() + "\n");
+        } catch (ExecutionException ex) {
+            // The cause may reveal the internals of the server, so only the
+            // log gets it:
+            LOGGER.log(Level.SEVERE, "An alignment failed.", ex.getCause());
+            send(exchange, 500, "Internal error.\n");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, "Interrupted.\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Request parseRequest(HttpExchange exchange) throws IOException {
+        String method = null;
+        boolean fasta = false;
+        IntegerCostMatrix costMatrix = PAM250CostMatrix.getPAM250CostMatrix();
+        int gapPenalty = DEFAULT_GAP_PENALTY;
+        AlignmentOptions jobOptions = options;
+        String query = exchange.getRequestURI().getRawQuery();
+
+        if (query != null && !query.isEmpty()) {
+            for (String parameter : query.split("&")) {
+                int separator = parameter.indexOf('=');
+                String name = separator < 0 ?
+                              parameter :
+                              parameter.substring(0, separator);
+                String value = separator < 0 ?
+                               "" :
+                               parameter.substring(separator + 1);
+
+                switch (name) {
+                    case "method":
+                        if (!value.equals("exact")
+                                && !value.equals("progressive")) {
+                            throw new IllegalArgumentException(
+                                    "Unknown method: " + value);
+                        }
+
+                        method = value;
+                        break;
+
+                    case "format":
+                        if (!value.equals("clustal")
+                                && !value.equals("fasta")) {
+                            throw new IllegalArgumentException(
+                                    "Unknown format: " + value);
+                        }
+
+                        fasta = value.equals("fasta");
+                        break;
+
+                    case "alphabet":
+                        costMatrix = getCostMatrix(value);
+                        break;
+
+                    case "gap":
+                        gapPenalty = parseInteger(name, value);
+                        break;
+
+                    case "timeout":
+                        jobOptions = jobOptions.withTimeBudget(
+                                Duration.ofMillis(parseInteger(name, value)));
+                        break;
+
+                    default:
+                        throw new IllegalArgumentException(
+                                "Unknown parameter: " + name);
+                }
+            }
+        }
+
+        String contentLength =
+                exchange.getRequestHeaders().getFirst("Content-Length");
+
+        if (contentLength != null
+                && contentLength.length() > 0
+                && !isWithinRequestLimit(contentLength)) {
+            throw new RequestTooLargeException();
+        }
+
+        List<FastaRecord> records = new ArrayList<>();
+
+        try (FastaReader reader = new FastaReader(
+                Channels.newChannel(
+                        new LimitedInputStream(exchange.getRequestBody())),
+                costMatrix.getAlphabet())) {
+            FastaRecord record;
+
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        }
+
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("No sequences in the request.");
+        }
+
+        List<String> names = new ArrayList<>(records.size());
+
+        for (FastaRecord record : records) {
+            names.add(record.getName());
+        }
+
+        boolean progressive = method == null ?
+                              records.size() > App.MAXIMUM_EXACT_SEQUENCES :
+                              method.equals("progressive");
+
+        if (!progressive && records.size() > App.MAXIMUM_EXACT_SEQUENCES) {
+            throw new IllegalArgumentException(
+                    "At most " + App.MAXIMUM_EXACT_SEQUENCES +
+                    " sequences are aligned exactly: " + records.size());
+        }
+
+        MultipleSequenceAlignmentInstance instance =
+                new MultipleSequenceAlignmentInstance(
+                        costMatrix,
+                        gapPenalty,
+                        records);
+
+        return new Request(new Job(instance, jobOptions, progressive),
+                           names,
+                           fasta);
+    }
+
+    private static AlignmentOptions withDefaultBudgets(AlignmentOptions options,
+                                                       int workers) {
+        if (options.getTimeBudget() == null) {
+            options = options.withTimeBudget(DEFAULT_TIME_BUDGET);
+        }
+
+        if (options.getMemoryBudget() == Long.MAX_VALUE) {
+            options = options.withMemoryBudget(
+                    Runtime.getRuntime().maxMemory() / 4 / workers);
+        }
+
+        return options;
+    }
+
+    private static IntegerCostMatrix getCostMatrix(String alphabet) {
+        switch (alphabet) {
+            case "protein":
+                return PAM250CostMatrix.getPAM250CostMatrix();
+
+            case "dna":
+                return NucleotideCostMatrix.getDNACostMatrix();
+
+            case "rna":
+                return NucleotideCostMatrix.getRNACostMatrix();
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown alphabet: " + alphabet);
+        }
+    }
+
+    /**
+     * Returns {@code true} unless the declared content length exceeds
+     * {@link #MAXIMUM_REQUEST_BYTES}. A malformed length is left to the
+     * limit on the bytes actually read.
+     */
+    private static boolean isWithinRequestLimit(String contentLength) {
+        try {
+            return Long.parseLong(contentLength) <= MAXIMUM_REQUEST_BYTES;
+        } catch (NumberFormatException ex) {
+            return true;
+        }
+    }
+
+    private static int parseInteger(String name, String value) {
+        try {
+            int integer = Integer.parseInt(value);
+
+            if (integer >= 0) {
+                return integer;
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below.
+        }
+
+        throw new IllegalArgumentException(
+                "Invalid value of " + name + ": " + value);
+    }
+
+    private void submit(Job job) {
+        if (!job.isSmall()) {
+            workerExecutor.execute(job);
+            return;
+        }
+
+        smallJobs.add(job);
+
+        try {
+            scheduleBatchTask();
+        } catch (RejectedExecutionException ex) {
+            // Withdraw the job, whose permit the caller releases. If a batch
+            // task took it meanwhile, the task runs it and releases the
+            // permit itself.
+            if (smallJobs.remove(job)) {
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Starts a task draining the small jobs on the batch pool unless
+     * {@link #maximumBatchTasks} of them already run. A task finishing checks
+     * the queue again after leaving, so that no job is left behind.
+     */
+    private void scheduleBatchTask() {
+        while (true) {
+            int tasks = batchTasks.get();
+
+            if (tasks >= maximumBatchTasks) {
+                return;
+            }
+
+            if (batchTasks.compareAndSet(tasks, tasks + 1)) {
+                break;
+            }
+        }
+
+        try {
+            batchExecutor.execute(this::runBatch);
+        } catch (RejectedExecutionException ex) {
+            batchTasks.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    private void runBatch() {
+        try {
+            for (int i = 0; i < MAXIMUM_BATCH_SIZE; ++i) {
+                Job job = smallJobs.poll();
+
+                if (job == null) {
+                    break;
+                }
+
+                job.run();
+            }
+        } finally {
+            batchTasks.decrementAndGet();
+        }
+
+        // Either a job added after the last poll is seen here, or its
+        // submitter saw the decremented task count and scheduled a task.
+        if (!smallJobs.isEmpty()) {
+            try {
+                scheduleBatchTask();
+            } catch (RejectedExecutionException ex) {
+                // Shutting down; run the jobs left here, so that none of
+                // them keeps its permit and its caller waiting.
+                Job job;
+
+                while ((job = smallJobs.poll()) != null) {
+                    job.run();
+                }
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String text)
+            throws IOException {
+        send(exchange, status, text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type",
+                                          "text/plain; charset=US-ASCII");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Returns a virtual thread per task executor if the runtime provides one.
+     * The build targets Java versions without virtual threads, so the
+     * factory method is looked up reflectively.
+     */
+    private static ExecutorService createConnectionExecutor() {
+        try {
+            Method method =
+                    Executors.class.getMethod(
+                            "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(
+                    createDaemonThreadFactory("Alignment server connection "));
+        }
+    }
+
+    private static ThreadFactory createDaemonThreadFactory(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread =
+                    new Thread(runnable,
+                               prefix + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * This exception reports a request body longer than
+     * {@link #MAXIMUM_REQUEST_BYTES}.
+     */
+    private static final class RequestTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        RequestTooLargeException() {
+            super("The request body exceeds " + MAXIMUM_REQUEST_BYTES +
+                  " bytes.");
+        }
+    }
+
+    /**
+     * This class reads a request body, failing as soon as it exceeds
+     * {@link #MAXIMUM_REQUEST_BYTES}.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining = MAXIMUM_REQUEST_BYTES;
+
+        LimitedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b >= 0) {
+                count(1);
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException {
+            int bytes = super.read(buffer, offset, length);
+
+            if (bytes > 0) {
+                count(bytes);
+            }
+
+            return bytes;
+        }
+
+        private void count(int bytes) throws RequestTooLargeException {
+            remaining -= bytes;
+
+            if (remaining < 0L) {
+                throw new RequestTooLargeException();
+            }
+        }
+    }
+
+    /**
+     * This class holds a parsed request.
+     */
+    private static final class Request {
+
+        final Job job;
+        final List<String> names;
+        final boolean fasta;
+
+        Request(Job job, List<String> names, boolean fasta) {
+            this.job = job;
+            this.names = names;
+            this.fasta = fasta;
+        }
+    }
+
+    /**
+     * This class holds an admitted alignment job.
+     */
+    private final class Job implements Runnable {
+
+        final MultipleSequenceAlignmentInstance instance;
+        final AlignmentOptions options;
+        final boolean progressive;
+        final CompletableFuture<Alignment> result = new CompletableFuture<>();
+
+        Job(MultipleSequenceAlignmentInstance instance,
+            AlignmentOptions options,
+            boolean progressive) {
+            this.instance = instance;
+            this.options = options;
+            this.progressive = progressive;
+        }
+
+        /**
+         * Returns {@code true} if the estimated work of this job is small:
+         * the size of the lattice for an exact alignment, or the total size
+         * of the pairwise tables for a progressive one.
+         */
+        boolean isSmall() {
+            int sequences = instance.getSequenceCount();
+            long cells = progressive ? 0L : 1L;
+
+            for (int i = 0; i < sequences; ++i) {
+                if (progressive) {
+                    for (int j = i + 1; j < sequences; ++j) {
+                        cells += (instance.getSequenceLength(i) + 1L) *
+                                 (instance.getSequenceLength(j) + 1L);
+                    }
+                } else {
+                    cells *= instance.getSequenceLength(i) + 1L;
+                }
+
+                if (cells > MAXIMUM_SMALL_JOB_CELLS) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.complete(progressive ?
+                                instance.alignProgressive(options) :
+                                instance.align(options));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                admission.release();
+            }
+        }
+    }
+}
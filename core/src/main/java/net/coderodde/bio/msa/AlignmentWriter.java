@@ -0,0 +1,191 @@
+package net.coderodde.bio.msa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * This class writes alignments in aligned FASTA or Clustal format to a 
+ * channel. The rows are streamed column by column from the gap masks of the
+ * alignment through a fixed-size buffer, so no row is ever built as a 
+ * string.
+ */
+public final class AlignmentWriter implements AutoCloseable {
+
+    private static final int BUFFER_CAPACITY = 1 << 16;
+    private static final int FASTA_LINE_LENGTH = 60;
+    private static final int CLUSTAL_BLOCK_LENGTH = 60;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_CAPACITY);
+
+    public AlignmentWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes {@code alignment} in aligned FASTA format.
+     * 
+     * @param alignment the alignment to write.
+     * @param names     the names of the rows.
+     * @throws IOException if writing fails.
+     */
+    public void writeFasta(Alignment alignment, List<String> names) 
+            throws IOException {
+        checkNames(alignment, names);
+
+        for (int row = 0; row < alignment.getRowCount(); ++row) {
+            put('>');
+            put(names.get(row));
+            put('\n');
+
+            String sequence = alignment.getSequence(row);
+            int residue = 0;
+
+            for (int column = 0; column < alignment.getLength(); ++column) {
+                put(alignment.isGap(row, column) ?
+                    AminoAcidAlphabet.GAP_CHARACTER :
+                    sequence.charAt(residue++));
+
+                if ((column + 1) % FASTA_LINE_LENGTH == 0
+                        || column + 1 == alignment.getLength()) {
+                    put('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes {@code alignment} in Clustal format. The line below each block 
+     * marks the fully conserved columns with {@code '*'}.
+     * 
+     * @param alignment the alignment to write.
+     * @param names     the names of the rows.
+     * @throws IOException if writing fails.
+     */
+    public void writeClustal(Alignment alignment, List<String> names) 
+            throws IOException {
+        checkNames(alignment, names);
+        int rows = alignment.getRowCount();
+        int nameWidth = 0;
+
+        for (String name : names) {
+            nameWidth = Math.max(nameWidth, getClustalName(name).length());
+        }
+
+        nameWidth += 6;
+
+        // The residue index at which each row resumes in the next block:
+        int[] residues = new int[rows];
+
+        // The characters of the first row in the current block, or zero in 
+        // the columns that are not conserved so far:
+        char[] conserved = new char[CLUSTAL_BLOCK_LENGTH];
+        put("CLUSTAL W multiple sequence alignment\n\n\n");
+
+        for (int blockStart = 0; 
+                blockStart < alignment.getLength(); 
+                blockStart += CLUSTAL_BLOCK_LENGTH) {
+            int blockEnd = Math.min(blockStart + CLUSTAL_BLOCK_LENGTH, 
+                                    alignment.getLength());
+
+            for (int row = 0; row < rows; ++row) {
+                putPadded(getClustalName(names.get(row)), nameWidth);
+                String sequence = alignment.getSequence(row);
+
+                for (int i = blockStart; i < blockEnd; ++i) {
+                    char c = alignment.isGap(row, i) ? 
+                             0 : 
+                             sequence.charAt(residues[row]++);
+
+                    if (row == 0) {
+                        conserved[i - blockStart] = c;
+                    } else if (conserved[i - blockStart] != c) {
+                        conserved[i - blockStart] = 0;
+                    }
+
+                    put(c == 0 ? AminoAcidAlphabet.GAP_CHARACTER : c);
+                }
+
+                put('\n');
+            }
+
+            putPadded("", nameWidth);
+
+            for (int i = blockStart; i < blockEnd; ++i) {
+                put(conserved[i - blockStart] != 0 ? '*' : ' ');
+            }
+
+            put("\n\n");
+        }
+    }
+
+    /**
+     * Writes out the buffered output.
+     * 
+     * @throws IOException if writing fails.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static String getClustalName(String name) {
+        int end = 0;
+
+        while (end < name.length() 
+                && !Character.isWhitespace(name.charAt(end))) {
+            end++;
+        }
+
+        return name.substring(0, end);
+    }
+
+    private static void checkNames(Alignment alignment, List<String> names) {
+        if (names.size() != alignment.getRowCount()) {
+            throw new IllegalArgumentException(
+                    "Expected " + alignment.getRowCount() + " names, got " + 
+                    names.size());
+        }
+    }
+
+    private void putPadded(String string, int width) throws IOException {
+        put(string);
+
+        for (int i = string.length(); i < width; ++i) {
+            put(' ');
+        }
+    }
+
+    private void put(String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.US_ASCII);
+
+        for (byte b : bytes) {
+            put((char) b);
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+
+        buffer.put((byte) c);
+    }
+}
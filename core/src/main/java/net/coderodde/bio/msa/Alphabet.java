@@ -0,0 +1,28 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This interface maps the residue characters of an alphabet to residue codes
+ * and back. The codes range from zero to {@link #size()} minus one; the code
+ * {@link #size()} denotes a gap wherever sequences are encoded.
+ */
+public interface Alphabet {
+
+    /**
+     * Returns the number of residues. Residue codes range from zero to this
+     * value minus one.
+     * 
+     * @return the alphabet size.
+     */
+    public int size();
+
+    /**
+     * Returns the residue code of the given character.
+     * 
+     * @param residueChar the residue character in upper case.
+     * @return the residue code, or {@code -1} if the character is not in this
+     *         alphabet.
+     */
+    public int getCode(char residueChar);
+
+    public char getCharacter(int code);
+}
@@ -0,0 +1,81 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class maps the amino acids to residue codes and back. The only 
+ * instance is built when the class is initialized and never modified 
+ * afterwards, so it may be shared by any number of threads.
+ */
+public final class AminoAcidAlphabet implements Alphabet {
+
+    public static final Character GAP_CHARACTER = '-';
+    private static final AminoAcidAlphabet INSTANCE = new AminoAcidAlphabet();
+
+    private final Set<Character> alphabet = new HashSet<>();
+
+    /**
+     * Maps residue codes to amino acid characters.
+     */
+    private final char[] characters;
+
+    /**
+     * Maps ASCII characters to residue codes, or to {@code -1} if the 
+     * character is not an amino acid.
+     */
+    private final byte[] codes = new byte[128];
+
+    public static AminoAcidAlphabet getAminoAcidAlphabet() {
+        return INSTANCE;
+    }
+
+    private AminoAcidAlphabet() {
+        String aminoAcids = "ACDEF" +
+                            "GHIKL" +
+                            "MNPQR" +
+                            "STVWY";
+
+        characters = aminoAcids.toCharArray();
+        Arrays.fill(codes, (byte) -1);
+
+        for (int code = 0; code < characters.length; ++code) {
+            alphabet.add(characters[code]);
+            codes[characters[code]] = (byte) code;
+        }
+    }
+
+    public Set<Character> getCharacterSet() {
+        return Collections.<Character>unmodifiableSet(alphabet);
+    }
+
+    /**
+     * Returns the number of amino acids. Residue codes range from zero to
+     * this value minus one.
+     * 
+     * @return the alphabet size.
+     */
+    @Override
+    public int size() {
+        return characters.length;
+    }
+
+    /**
+     * Returns the residue code of the given amino acid character.
+     * 
+     * @param aminoAcidChar the amino acid character.
+     * @return the residue code, or {@code -1} if the character is not an amino
+     *         acid.
+     */
+    @Override
+    public int getCode(char aminoAcidChar) {
+        return aminoAcidChar < codes.length ? codes[aminoAcidChar] : -1;
+    }
+
+    @Override
+    public char getCharacter(int code) {
+        return characters[code];
+    }
+}
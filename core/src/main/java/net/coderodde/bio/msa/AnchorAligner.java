@@ -0,0 +1,481 @@
+package net.coderodde.bio.msa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class computes alignments by anchoring. The anchors are the k-mers
+ * occurring exactly once in every sequence, extended along their diagonal
+ * as long as they stay common to all sequences. The chain of anchors of the
+ * least total cost among those ordered consistently in all sequences is
+ * selected, and every anchor is aligned as a block of gapless columns. This
+ * cuts the lattice into independent boxes between the anchors, which are
+ * aligned optimally and in parallel, and whose alignments are stitched
+ * together with the anchor columns.
+ * <p>
+ * The volume of a lattice is the product of the sequence lengths, so the
+ * boxes together are exponentially smaller than the whole lattice. The
+ * result is optimal only if an optimal alignment aligns the anchors; it
+ * carries the sum of the optimal pairwise costs as its lower bound.
+ */
+final class AnchorAligner {
+
+    private static final int MINIMUM_ANCHOR_LENGTH = 4;
+
+    /**
+     * The k-mer length is chosen so that the number of possible k-mers is at
+     * least this many times the length of the longest sequence, which makes
+     * unique k-mers common to all sequences by chance rare.
+     */
+    private static final int ANCHOR_SPECIFICITY = 4;
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final AlignmentOptions options;
+    private final int threads;
+    private final SearchStatistics statistics;
+    private final byte[][] sequences;
+
+    /**
+     * The number of bits of a residue code in a k-mer key.
+     */
+    private final int bitsPerCode;
+
+    AnchorAligner(MultipleSequenceAlignmentInstance instance,
+                  AlignmentOptions options,
+                  int threads,
+                  SearchStatistics statistics) {
+        this.instance = instance;
+        this.options = options;
+        this.threads = threads;
+        this.statistics = statistics;
+        this.sequences = instance.getEncodedSequences();
+        this.bitsPerCode =
+                Math.max(1,
+                         Integer.SIZE -
+                                 Integer.numberOfLeadingZeros(
+                                         instance.getGapCode() - 1));
+    }
+
+    Alignment align() {
+        List<Anchor> chain =
+                sequences.length < 2 ?
+                new ArrayList<>() :
+                chainAnchors(findAnchors(getAnchorLength()));
+        int dimensions = sequences.length;
+
+        // The boxes before, between and after the anchors:
+        int[][] from = new int[chain.size() + 1][];
+        int[][] to = new int[chain.size() + 1][];
+        from[0] = new int[dimensions];
+
+        for (int i = 0; i < chain.size(); ++i) {
+            Anchor anchor = chain.get(i);
+            to[i] = anchor.start;
+            from[i + 1] = anchor.getEnd();
+        }
+
+        to[chain.size()] = instance.getTargetNode().getCoordinates();
+
+        Alignment[] boxAlignments = alignBoxes(from, to);
+        int length = 0;
+        long cost = 0L;
+
+        for (int i = 0; i < boxAlignments.length; ++i) {
+            if (boxAlignments[i] != null) {
+                length += boxAlignments[i].getLength();
+                cost += boxAlignments[i].getCost();
+                statistics.addSubsearch(boxAlignments[i].getStatistics());
+            }
+
+            if (i < chain.size()) {
+                length += chain.get(i).length;
+                cost += getCost(chain.get(i));
+            }
+        }
+
+        int[] moves = new int[length];
+        int column = 0;
+        int allDimensions = (1 << dimensions) - 1;
+
+        for (int i = 0; i < boxAlignments.length; ++i) {
+            Alignment box = boxAlignments[i];
+
+            for (int j = 0; box != null && j < box.getLength(); ++j) {
+                int move = 0;
+
+                for (int row = 0; row < dimensions; ++row) {
+                    if (!box.isGap(row, j)) {
+                        move |= 1 << row;
+                    }
+                }
+
+                moves[column++] = move;
+            }
+
+            if (i < chain.size()) {
+                Arrays.fill(moves,
+                            column,
+                            column += chain.get(i).length,
+                            allDimensions);
+            }
+        }
+
+        long lowerBound = 0L;
+        int[][] pairwiseCosts =
+                new HeuristicFunctionComputer(options)
+                        .computePairwiseCosts(instance);
+
+        for (int i = 0; i < dimensions; ++i) {
+            for (int j = i + 1; j < dimensions; ++j) {
+                lowerBound += pairwiseCosts[i][j];
+            }
+        }
+
+        return instance.createAlignment(
+                moves,
+                length,
+                Math.toIntExact(cost),
+                Math.toIntExact(Math.min(cost, lowerBound)));
+    }
+
+    /**
+     * Aligns the boxes between {@code from[i]} and {@code to[i]} in
+     * parallel, the largest ones first. The alignment of an empty box is
+     * {@code null}.
+     */
+    private Alignment[] alignBoxes(int[][] from, int[][] to) {
+        int boxes = from.length;
+        Alignment[] alignments = new Alignment[boxes];
+        Integer[] order = new Integer[boxes];
+        double[] volumes = new double[boxes];
+        int nonEmptyBoxes = 0;
+
+        for (int i = 0; i < boxes; ++i) {
+            order[i] = i;
+            volumes[i] = 1.0;
+            boolean empty = true;
+
+            for (int dimension = 0; dimension < from[i].length; ++dimension) {
+                int sideLength = to[i][dimension] - from[i][dimension];
+                volumes[i] *= sideLength + 1;
+                empty &= sideLength == 0;
+            }
+
+            if (empty) {
+                volumes[i] = 0.0;
+            } else {
+                nonEmptyBoxes++;
+            }
+        }
+
+        Arrays.sort(order, (i, j) -> Double.compare(volumes[j], volumes[i]));
+
+        if (threads == 1 || nonEmptyBoxes < 2) {
+            for (int i = 0; i < nonEmptyBoxes; ++i) {
+                alignments[order[i]] = alignBox(from[order[i]], to[order[i]]);
+            }
+
+            return alignments;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(threads, nonEmptyBoxes),
+                runnable -> {
+                    Thread thread = new Thread(
+                            runnable,
+                            "Anchor box aligner " +
+                                    threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        try {
+            List<CompletableFuture<Alignment>> futures =
+                    new ArrayList<>(nonEmptyBoxes);
+
+            for (int i = 0; i < nonEmptyBoxes; ++i) {
+                int box = order[i];
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> alignBox(from[box], to[box]),
+                        executor));
+            }
+
+            for (int i = 0; i < nonEmptyBoxes; ++i) {
+                alignments[order[i]] = futures.get(i).join();
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return alignments;
+    }
+
+    private Alignment alignBox(int[] from, int[] to) {
+        return instance.getSubinstance(from, to).align(options);
+    }
+
+    /**
+     * Returns the length of the k-mers: the smallest one at least
+     * {@link #MINIMUM_ANCHOR_LENGTH} for which there are
+     * {@link #ANCHOR_SPECIFICITY} times more possible k-mers than residues in
+     * the longest sequence, as long as the keys fit in 31 bits.
+     */
+    private int getAnchorLength() {
+        int maximumLength = 0;
+
+        for (byte[] sequence : sequences) {
+            maximumLength = Math.max(maximumLength, sequence.length);
+        }
+
+        double kmers = Math.pow(instance.getGapCode(), MINIMUM_ANCHOR_LENGTH);
+        int anchorLength = MINIMUM_ANCHOR_LENGTH;
+
+        while (kmers < (double) ANCHOR_SPECIFICITY * maximumLength
+                && (anchorLength + 1) * bitsPerCode < Integer.SIZE) {
+            kmers *= instance.getGapCode();
+            anchorLength++;
+        }
+
+        return anchorLength;
+    }
+
+    /**
+     * Finds the k-mers occurring exactly once in each sequence, and merges
+     * the ones following each other on the same diagonal into longer
+     * anchors.
+     *
+     * @return the anchors in the order of their start in the first sequence.
+     */
+    private List<Anchor> findAnchors(int k) {
+        // The unique k-mers of each sequence, each as the key in the upper
+        // and the position in the lower half of a long, sorted by key:
+        long[][] uniqueKmers = new long[sequences.length][];
+
+        for (int i = 0; i < sequences.length; ++i) {
+            uniqueKmers[i] = getUniqueKmers(sequences[i], k);
+        }
+
+        List<int[]> starts = new ArrayList<>();
+        int[] indices = new int[sequences.length];
+
+        for (long kmer : uniqueKmers[0]) {
+            long key = kmer >>> 32;
+            int[] start = new int[sequences.length];
+            start[0] = (int) kmer;
+            boolean common = true;
+
+            for (int i = 1; i < sequences.length && common; ++i) {
+                long[] kmers = uniqueKmers[i];
+
+                while (indices[i] < kmers.length
+                        && kmers[indices[i]] >>> 32 < key) {
+                    indices[i]++;
+                }
+
+                common = indices[i] < kmers.length
+                         && kmers[indices[i]] >>> 32 == key;
+
+                if (common) {
+                    start[i] = (int) kmers[indices[i]];
+                }
+            }
+
+            if (common) {
+                starts.add(start);
+            }
+        }
+
+        starts.sort((start1, start2) -> Integer.compare(start1[0],
+                                                        start2[0]));
+        List<Anchor> anchors = new ArrayList<>();
+        Anchor previous = null;
+
+        for (int[] start : starts) {
+            if (previous != null && previous.isContinuedBy(start, k)) {
+                previous.length++;
+                continue;
+            }
+
+            previous = new Anchor(start, k);
+            anchors.add(previous);
+        }
+
+        return anchors;
+    }
+
+    private long[] getUniqueKmers(byte[] sequence, int k) {
+        if (sequence.length < k) {
+            return new long[0];
+        }
+
+        long[] kmers = new long[sequence.length - k + 1];
+        long mask = (1L << (k * bitsPerCode)) - 1;
+        long key = 0L;
+
+        for (int i = 0; i < sequence.length; ++i) {
+            key = ((key << bitsPerCode) | sequence[i]) & mask;
+
+            if (i >= k - 1) {
+                kmers[i - k + 1] = (key << 32) | (i - k + 1);
+            }
+        }
+
+        Arrays.sort(kmers);
+        int unique = 0;
+
+        for (int i = 0; i < kmers.length; ) {
+            int j = i + 1;
+
+            while (j < kmers.length && kmers[j] >>> 32 == kmers[i] >>> 32) {
+                j++;
+            }
+
+            if (j == i + 1) {
+                kmers[unique++] = kmers[i];
+            }
+
+            i = j;
+        }
+
+        return Arrays.copyOf(kmers, unique);
+    }
+
+    /**
+     * Selects the chain of anchors of the least total cost among those
+     * ordered consistently in all sequences, by dynamic programming over the
+     * anchors in the order of their start in the first sequence. Anchors of
+     * non-negative cost never help and are left out.
+     */
+    private List<Anchor> chainAnchors(List<Anchor> anchors) {
+        int size = anchors.size();
+        long[] chainCosts = new long[size];
+        int[] predecessors = new int[size];
+        int best = -1;
+
+        for (int j = 0; j < size; ++j) {
+            Anchor anchor = anchors.get(j);
+            long cost = getCost(anchor);
+            predecessors[j] = -1;
+
+            if (cost >= 0L) {
+                chainCosts[j] = Long.MAX_VALUE;
+                continue;
+            }
+
+            chainCosts[j] = cost;
+
+            for (int i = 0; i < j; ++i) {
+                if (chainCosts[i] != Long.MAX_VALUE
+                        && chainCosts[i] + cost < chainCosts[j]
+                        && anchors.get(i).precedes(anchor)) {
+                    chainCosts[j] = chainCosts[i] + cost;
+                    predecessors[j] = i;
+                }
+            }
+
+            if (best < 0 || chainCosts[j] < chainCosts[best]) {
+                best = j;
+            }
+        }
+
+        List<Anchor> chain = new ArrayList<>();
+
+        for (int i = best; i >= 0; i = predecessors[i]) {
+            chain.add(anchors.get(i));
+        }
+
+        for (int i = 0, j = chain.size() - 1; i < j; ++i, --j) {
+            Anchor tmp = chain.get(i);
+            chain.set(i, chain.get(j));
+            chain.set(j, tmp);
+        }
+
+        return chain;
+    }
+
+    /**
+     * Returns the sum-of-pairs cost of the gapless columns of
+     * {@code anchor}.
+     */
+    private long getCost(Anchor anchor) {
+        long pairs = (long) sequences.length * (sequences.length - 1) / 2;
+        long cost = 0L;
+        byte[] sequence = sequences[0];
+        int end = anchor.start[0] + anchor.length;
+
+        for (int i = anchor.start[0]; i < end; ++i) {
+            cost += instance.getResidueCost(sequence[i], sequence[i]);
+        }
+
+        return pairs * cost;
+    }
+
+    /**
+     * This class holds a run of residues common to all sequences.
+     */
+    private static final class Anchor {
+
+        /**
+         * The start of the run in each sequence.
+         */
+        final int[] start;
+        int length;
+
+        Anchor(int[] start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        int[] getEnd() {
+            int[] end = new int[start.length];
+
+            for (int i = 0; i < end.length; ++i) {
+                end[i] = start[i] + length;
+            }
+
+            return end;
+        }
+
+        /**
+         * Returns {@code true} if a k-mer starting at {@code start} extends
+         * this anchor by one residue in every sequence, that is, starts one
+         * residue after the last k-mer of this anchor.
+         */
+        boolean isContinuedBy(int[] start, int k) {
+            for (int i = 0; i < start.length; ++i) {
+                if (start[i] != this.start[i] + length - k + 1) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Returns {@code true} if this anchor ends before {@code anchor}
+         * starts in every sequence.
+         */
+        boolean precedes(Anchor anchor) {
+            for (int i = 0; i < start.length; ++i) {
+                if (start[i] + length > anchor.start[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package net.coderodde.bio.msa;
+
+import java.util.function.Consumer;
+
+/**
+ * This class implements weighted A* and its anytime variant ARA* (Likhachev,
+ * Gordon and Thrun). Nodes are ordered by {@code g + (1 + epsilon) * h}, 
+ * which finds an alignment quickly at the price of optimality. Each round of 
+ * ARA* lowers {@code epsilon} and reuses the costs found so far; the nodes 
+ * whose cost decreases after they are closed are kept on an inconsistent list
+ * and reopened at the start of the next round.
+ * <p>
+ * Because the cost matrix may contain negative entries, the suboptimality 
+ * factor refers to shifted costs: every pair of residues costs {@code 2s} 
+ * more and every pair of a residue and a gap {@code s} more, with {@code s}
+ * chosen so that no shifted pair cost is negative. Since each residue takes 
+ * part in exactly one pair per other sequence, this adds the same constant 
+ * {@code s * (k - 1) * (n_1 + ... + n_k)} to every alignment, so the shift
+ * does not change which alignments are optimal, yet the shifted costs are
+ * non-negative, and the alignment returned for a given {@code epsilon} has
+ * shifted cost at most {@code (1 + epsilon)} times the optimal shifted cost.
+ */
+final class AnytimeAStar {
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final HeuristicFunction heuristicFunction;
+    private final SearchStatistics statistics;
+    private final SearchBudget budget;
+    private final LatticeCoordinateCodec codec;
+    private final SearchStateTable table = new SearchStateTable();
+    private final BucketOpenList open = new BucketOpenList();
+    private final NeighborCursor cursor;
+    private final HopCostEngine hopCostEngine;
+    private final LongArrayList inconsistentKeys = new LongArrayList();
+    private final LongArrayList rebuildKeys = new LongArrayList();
+    private final int[] coordinates;
+    private final long targetKey;
+
+    /**
+     * The shift per consumed residue, that is, {@code s * (k - 1)}.
+     */
+    private final int shiftPerResidue;
+
+    /**
+     * The sum of the sequence lengths.
+     */
+    private final int totalLength;
+
+    /**
+     * The current inflation factor {@code 1 + epsilon}.
+     */
+    private double weight;
+
+    /**
+     * The number of nodes closed in the current round.
+     */
+    private long closedNodes;
+
+    AnytimeAStar(MultipleSequenceAlignmentInstance instance,
+                 HeuristicFunction heuristicFunction,
+                 SearchStatistics statistics,
+                 SearchBudget budget) {
+        this.instance = instance;
+        this.heuristicFunction = heuristicFunction;
+        this.statistics = statistics;
+        this.budget = budget;
+        this.codec = LatticeCoordinateCodec.create(instance);
+        this.cursor = new NeighborCursor(instance);
+        this.hopCostEngine = new HopCostEngine(instance);
+        this.coordinates = new int[instance.getSequenceCount()];
+        this.targetKey = 
+                codec.encode(instance.getTargetNode().getCoordinates());
+        this.shiftPerResidue = computeShift(instance) * 
+                               (coordinates.length - 1);
+
+        int totalLength = 0;
+
+        for (int i = 0; i < coordinates.length; ++i) {
+            totalLength += instance.getSequenceLength(i);
+        }
+
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * Runs weighted A* once with the given {@code epsilon}.
+     * 
+     * @param epsilon the inflation of the heuristic.
+     * @return an alignment whose shifted cost is within {@code 1 + epsilon}
+     *         of the optimum, along with a proven lower bound.
+     */
+    Alignment search(double epsilon) {
+        return search(epsilon, epsilon, null);
+    }
+
+    /**
+     * Runs ARA*, starting with {@code initialEpsilon} and halving it after 
+     * each round, until the last round runs with zero and thus produces an 
+     * optimal alignment. Rounds stop early once the lower bound meets the 
+     * cost of the best alignment found.
+     * 
+     * @param initialEpsilon the inflation of the heuristic in the first round.
+     * @param finalEpsilon   the inflation at which to stop.
+     * @param listener       the consumer of the improved alignments, or 
+     *                       {@code null}.
+     * @return the alignment of the last round, or the best alignment found
+     *         if the budget is exceeded after the first round.
+     * @throws BudgetExceededException if the budget is exceeded during the 
+     *         first round.
+     */
+    Alignment search(double initialEpsilon, 
+                     double finalEpsilon, 
+                     Consumer<Alignment> listener) {
+        long sourceKey = 
+                codec.encode(instance.getSourceNode().getCoordinates());
+
+        table.setCost(table.insert(sourceKey), 0, 0);
+        weight = 1.0 + initialEpsilon;
+        open.push(sourceKey, 
+                  getPriority(0, 
+                              0, 
+                              heuristicFunction.get(
+                                      instance.getSourceNode())), 
+                  0);
+
+        Alignment best = null;
+        double epsilon = initialEpsilon;
+
+        while (true) {
+            try {
+                improvePath();
+            } catch (BudgetExceededException ex) {
+                if (best == null) {
+                    throw ex;
+                }
+
+                // The best alignment of the finished rounds is the fallback.
+                statistics.setBudgetExceeded();
+                statistics.addMemory(table, open);
+                return best;
+            }
+
+            int lowerBound = rebuildOpenList();
+
+            // The cost stored for the target may be stale, so the path is 
+            // traced and scored on every round:
+            Alignment alignment = instance.tracebackPath(codec, 
+                                                         table, 
+                                                         targetKey,
+                                                         lowerBound);
+
+            if (best == null || alignment.getCost() < best.getCost()) {
+                best = alignment;
+            }
+
+            best = best.withLowerBound(Math.min(best.getCost(), lowerBound));
+
+            if (listener != null) {
+                listener.accept(best);
+            }
+
+            if (epsilon <= finalEpsilon || 
+                    best.getLowerBound() == best.getCost()) {
+                statistics.addMemory(table, open);
+                return best;
+            }
+
+            epsilon = epsilon < 0.01 ? 0.0 : epsilon / 2;
+            epsilon = Math.max(epsilon, finalEpsilon);
+            weight = 1.0 + epsilon;
+            reinsertOpenList();
+        }
+    }
+
+    /**
+     * Expands nodes until no open node has a smaller priority than the 
+     * target.
+     */
+    private void improvePath() {
+        while (!open.isEmpty()) {
+            int targetSlot = table.find(targetKey);
+
+            if (targetSlot != -1 && 
+                    table.getCost(targetSlot) != SearchStateTable.UNREACHED &&
+                    getShiftedCost(table.getCost(targetSlot), totalLength)
+                    <= open.getMinimumF()) {
+                return;
+            }
+
+            long currentKey = open.pop();
+            int currentSlot = table.find(currentKey);
+            int currentCost = table.getCost(currentSlot);
+
+            if (table.isClosed(currentSlot) || open.getLastG() > currentCost) {
+                // A duplicate or an outdated entry.
+                statistics.countDuplicatePop();
+                continue;
+            }
+
+            if (budget.isExceeded(statistics.getExpansions(),
+                                  SearchStatistics.getBytes(table, open)
+                                          + codec.getBytes())) {
+                throw new BudgetExceededException(
+                        BudgetExceededException.NO_LOWER_BOUND);
+            }
+
+            table.setClosed(currentSlot);
+            statistics.countExpansion();
+            statistics.updatePeaks(open.size() + 1, ++closedNodes);
+            codec.decode(currentKey, coordinates);
+
+            int currentDepth = 0;
+
+            for (int coordinate : coordinates) {
+                currentDepth += coordinate;
+            }
+
+            cursor.loadChildren(coordinates);
+            hopCostEngine.load(coordinates);
+            statistics.countGeneratedNodes(cursor.size());
+
+            while (cursor.next()) {
+                int weight = hopCostEngine.update(cursor.getFlippedDimension(),
+                                                  cursor.getMove());
+                int[] childCoordinates = cursor.getCoordinates();
+                long childKey = codec.encode(childCoordinates);
+                int childSlot = table.insert(childKey);
+                int tentativeCost = currentCost + weight;
+
+                if (table.getCost(childSlot) <= tentativeCost) {
+                    continue;
+                }
+
+                table.setCost(childSlot, tentativeCost, cursor.getMove());
+
+                if (!table.isClosed(childSlot)) {
+                    int childDepth = 
+                            currentDepth + Integer.bitCount(cursor.getMove());
+                    open.push(childKey, 
+                              getPriority(tentativeCost, 
+                                          childDepth,
+                                          heuristicFunction
+                                                  .get(childCoordinates)),
+                              tentativeCost);
+                } else if (!table.isInconsistent(childSlot)) {
+                    table.setInconsistent(childSlot);
+                    inconsistentKeys.add(childKey);
+                    statistics.countReopening();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the open and inconsistent nodes from the open list and the 
+     * inconsistent list into {@code rebuildKeys}, and computes the smallest 
+     * unweighted f-value among them.
+     * 
+     * @return the smallest unweighted f-value of the open and inconsistent 
+     *         nodes, which bounds the optimal cost from below.
+     */
+    private int rebuildOpenList() {
+        int lowerBound = Integer.MAX_VALUE;
+        rebuildKeys.clear();
+
+        while (!open.isEmpty()) {
+            long key = open.pop();
+            int slot = table.find(key);
+
+            if (table.isClosed(slot) || open.getLastG() > table.getCost(slot)) {
+                continue;
+            }
+
+            // Each open node has exactly one up-to-date entry.
+            rebuildKeys.add(key);
+            lowerBound = Math.min(lowerBound, getF(key, slot));
+        }
+
+        for (int i = 0; i < inconsistentKeys.size(); ++i) {
+            long key = inconsistentKeys.get(i);
+            rebuildKeys.add(key);
+            lowerBound = Math.min(lowerBound, getF(key, table.find(key)));
+        }
+
+        inconsistentKeys.clear();
+        return lowerBound;
+    }
+
+    /**
+     * Pushes the nodes collected by {@link #rebuildOpenList()} back to the 
+     * open list under the current weight, and forgets the closed nodes.
+     */
+    private void reinsertOpenList() {
+        table.clearFlags();
+        closedNodes = 0L;
+
+        for (int i = 0; i < rebuildKeys.size(); ++i) {
+            long key = rebuildKeys.get(i);
+            int cost = table.getCost(table.find(key));
+            codec.decode(key, coordinates);
+
+            int depth = 0;
+
+            for (int coordinate : coordinates) {
+                depth += coordinate;
+            }
+
+            open.push(key, 
+                      getPriority(cost, 
+                                  depth, 
+                                  heuristicFunction.get(coordinates)), 
+                      cost);
+        }
+    }
+
+    private int getF(long key, int slot) {
+        codec.decode(key, coordinates);
+        return table.getCost(slot) + heuristicFunction.get(coordinates);
+    }
+
+    private int getPriority(int cost, int depth, int heuristic) {
+        int shiftedHeuristic = 
+                heuristic + shiftPerResidue * (totalLength - depth);
+
+        return getShiftedCost(cost, depth) + 
+               (int) Math.floor(weight * shiftedHeuristic);
+    }
+
+    private int getShiftedCost(int cost, int depth) {
+        return cost + shiftPerResidue * depth;
+    }
+
+    /**
+     * Computes the smallest even {@code 2s >= 0} such that both 
+     * {@code 2s + c} for every residue pair cost {@code c} and 
+     * {@code s + gapPenalty} are non-negative, and returns {@code s}.
+     */
+    private static int computeShift(
+            MultipleSequenceAlignmentInstance instance) {
+        int minimumCost = 2 * instance.getGapPenalty();
+        int gapCode = instance.getGapCode();
+
+        for (int code1 = 0; code1 < gapCode; ++code1) {
+            for (int code2 = 0; code2 < gapCode; ++code2) {
+                minimumCost = Math.min(minimumCost, 
+                                       instance.getResidueCost(code1, code2));
+            }
+        }
+
+        return minimumCost >= 0 ? 0 : (1 - minimumCost) / 2;
+    }
+}
@@ -0,0 +1,103 @@
+package net.coderodde.bio.msa;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+final class App {
+
+    /**
+     * The largest number of sequences aligned exactly, by the command line
+     * and by the {@link AlignmentServer}. Larger families are aligned
+     * progressively. Every lattice node has {@code 2^d - 1} successors in
+     * {@code d} dimensions, so the exact searches soon become hopeless.
+     */
+    static final int MAXIMUM_EXACT_SEQUENCES = 8;
+
+    private static final int DEFAULT_PORT = 8080;
+
+    private static final String[] SEQUENCES = {
+        "ACGHKGMNPFQEKKFKLMNRW",
+        "CFGPQWYRTLMEKKFKNR",
+        "EACLMNRPQWTR",
+        "TIMWAYHTMGIEKKFK"
+    };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+            return;
+        }
+
+        if (args.length > 0) {
+            alignFastaFile(Paths.get(args[0]));
+            return;
+        }
+
+        MultipleSequenceAlignmentInstance instance = 
+                new MultipleSequenceAlignmentInstance(
+                        PAM250CostMatrix.getPAM250CostMatrix(),
+                        4, 
+                        SEQUENCES);
+
+        Alignment alignment1 = instance.align();
+
+        System.out.println(alignment1);
+        System.out.println(alignment1.getStatistics());
+        System.out.println();
+
+        Alignment alignment2 = instance.alignBrute();
+
+        System.out.println(alignment2);
+        System.out.println(alignment2.getStatistics());
+    }
+
+    /**
+     * Runs an alignment server on the loopback interface until the process
+     * is terminated.
+     */
+    private static void serve(int port) throws IOException {
+        AlignmentServer server =
+                new AlignmentServer(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                              port),
+                        Runtime.getRuntime().availableProcessors());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("Listening on " + server.getAddress());
+    }
+
+    /**
+     * Aligns the sequences of a FASTA file and writes the alignment to the 
+     * standard output in Clustal format.
+     */
+    private static void alignFastaFile(Path path) throws IOException {
+        List<FastaRecord> records = FastaReader.readAll(path);
+        List<String> names = new ArrayList<>(records.size());
+
+        for (FastaRecord record : records) {
+            names.add(record.getName());
+        }
+
+        MultipleSequenceAlignmentInstance instance = 
+                new MultipleSequenceAlignmentInstance(
+                        PAM250CostMatrix.getPAM250CostMatrix(),
+                        4,
+                        records);
+        Alignment alignment = records.size() > MAXIMUM_EXACT_SEQUENCES ?
+                              instance.alignProgressive() :
+                              instance.align();
+
+        // Flush rather than close, since closing would close System.out:
+        AlignmentWriter writer = 
+                new AlignmentWriter(Channels.newChannel(System.out));
+        writer.writeClustal(alignment, names);
+        writer.flush();
+    }
+}
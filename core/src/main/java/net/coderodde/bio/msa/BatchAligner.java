@@ -0,0 +1,119 @@
+package net.coderodde.bio.msa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class schedules many alignment jobs on a thread pool. The jobs share 
+ * the pairwise heuristic tables through the cache of the alignment options, 
+ * so a pair of sequences occurring in several jobs is processed only once 
+ * while the table stays in the cache.
+ */
+public final class BatchAligner implements AutoCloseable {
+
+    private final Executor executor;
+    private final AlignmentOptions options;
+
+    /**
+     * The executor to shut down on close, or {@code null} if the executor is
+     * owned by the caller.
+     */
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Creates a batch aligner running the jobs on {@code threads} threads of
+     * its own and sharing the pairwise tables through an in-memory cache of 
+     * at most {@code cacheBytes} bytes.
+     * 
+     * @param threads    the number of job threads.
+     * @param cacheBytes the maximum total size of the cached tables.
+     */
+    public BatchAligner(int threads, long cacheBytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads must be positive: " + threads);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.ownedExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(
+                    runnable, 
+                    "Batch aligner " + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = ownedExecutor;
+        this.options = AlignmentOptions.getDefaultOptions()
+                .withPairwiseTableCache(
+                        new MemoryPairwiseTableCache(cacheBytes));
+    }
+
+    /**
+     * Creates a batch aligner running the jobs on {@code executor} with the 
+     * given options. The tables are shared only if the options hold a 
+     * pairwise table cache.
+     * 
+     * @param executor the executor running the jobs.
+     * @param options  the alignment options of every job.
+     */
+    public BatchAligner(Executor executor, AlignmentOptions options) {
+        this.executor = Objects.requireNonNull(executor, "Executor is null");
+        this.options = Objects.requireNonNull(options, "Options are null");
+        this.ownedExecutor = null;
+    }
+
+    /**
+     * Schedules an optimal alignment of {@code instance}.
+     * 
+     * @param instance the instance to align.
+     * @return the future alignment.
+     */
+    public CompletableFuture<Alignment> submit(
+            MultipleSequenceAlignmentInstance instance) {
+        Objects.requireNonNull(instance, "Instance is null");
+        return CompletableFuture.supplyAsync(() -> instance.align(options), 
+                                             executor);
+    }
+
+    /**
+     * Schedules an optimal alignment of each instance in 
+     * {@code instances}.
+     * 
+     * @param instances the instances to align.
+     * @return the future alignments in the iteration order of 
+     *         {@code instances}.
+     */
+    public List<CompletableFuture<Alignment>> submitAll(
+            Collection<MultipleSequenceAlignmentInstance> instances) {
+        List<CompletableFuture<Alignment>> futures = 
+                new ArrayList<>(instances.size());
+
+        for (MultipleSequenceAlignmentInstance instance : instances) {
+            futures.add(submit(instance));
+        }
+
+        return futures;
+    }
+
+    public AlignmentOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Shuts down the thread pool of this batch aligner, if it owns one. The 
+     * jobs already submitted still run to completion.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
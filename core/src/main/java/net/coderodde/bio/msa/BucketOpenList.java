@@ -0,0 +1,267 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an open list over primitive node keys for integer
+ * priorities. Entries are bucketed first by their f-value and then, within an
+ * f-bucket, by their g-value, so that {@link #pop()} returns an entry with the
+ * smallest f-value and, among those, the largest g-value. Both levels are
+ * arrays of buckets addressed relative to a movable base, so negative values
+ * coming from the cost matrix are fine.
+ * <p>
+ * Pushes and pops take amortized constant time as long as the priorities
+ * stay within a bounded window, which holds for lattice searches with small
+ * integer hop costs.
+ */
+final class BucketOpenList {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The f-buckets. The bucket at index {@code i} holds the entries with
+     * f-value {@code fBase + i}, or is {@code null}.
+     */
+    private FBucket[] fBuckets = new FBucket[INITIAL_CAPACITY];
+
+    /**
+     * The f-value of the bucket at index zero.
+     */
+    private int fBase;
+
+    /**
+     * No f-bucket below this index is non-empty.
+     */
+    private int minimumIndex;
+
+    /**
+     * The number of entries in this open list.
+     */
+    private int size;
+
+    /**
+     * The f-value of the entry returned by the last call to {@link #pop()}.
+     */
+    private int lastF;
+
+    /**
+     * The g-value of the entry returned by the last call to {@link #pop()}.
+     */
+    private int lastG;
+
+    void push(long key, int f, int g) {
+        if (size == 0) {
+            // Center the window at the first priority pushed:
+            fBase = f - fBuckets.length / 2;
+            minimumIndex = f - fBase;
+        }
+
+        int index = f - fBase;
+
+        if (index < 0) {
+            growDown(-index);
+            index = f - fBase;
+        } else if (index >= fBuckets.length) {
+            growUp(index + 1);
+        }
+
+        if (fBuckets[index] == null) {
+            fBuckets[index] = new FBucket();
+        }
+
+        fBuckets[index].push(key, g);
+        size++;
+
+        if (index < minimumIndex) {
+            minimumIndex = index;
+        }
+    }
+
+    /**
+     * Removes and returns an entry with the smallest f-value and, among those,
+     * the largest g-value. The priorities of the entry are available via
+     * {@link #getLastF()} and {@link #getLastG()} afterwards.
+     *
+     * @return the key of the removed entry.
+     */
+    long pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Popping from an empty open list");
+        }
+
+        FBucket bucket = fBuckets[minimumIndex];
+
+        while (bucket == null || bucket.size == 0) {
+            bucket = fBuckets[++minimumIndex];
+        }
+
+        size--;
+        lastF = fBase + minimumIndex;
+        long key = bucket.pop();
+        lastG = bucket.lastG;
+        return key;
+    }
+
+    /**
+     * Returns the smallest f-value in this open list.
+     *
+     * @return the smallest f-value.
+     */
+    int getMinimumF() {
+        if (size == 0) {
+            throw new IllegalStateException("The open list is empty");
+        }
+
+        while (fBuckets[minimumIndex] == null
+                || fBuckets[minimumIndex].size == 0) {
+            minimumIndex++;
+        }
+
+        return fBase + minimumIndex;
+    }
+
+    int getLastF() {
+        return lastF;
+    }
+
+    int getLastG() {
+        return lastG;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries, keeping the buckets for reuse.
+     */
+    void clear() {
+        for (FBucket bucket : fBuckets) {
+            if (bucket != null) {
+                bucket.clear();
+            }
+        }
+
+        size = 0;
+    }
+
+    /**
+     * Returns the number of bytes taken by the key stacks of this open list,
+     * including the unused capacity.
+     */
+    long getCapacityBytes() {
+        long bytes = 0L;
+
+        for (FBucket bucket : fBuckets) {
+            if (bucket != null) {
+                for (long[] stack : bucket.stacks) {
+                    if (stack != null) {
+                        bytes += (long) stack.length * Long.BYTES;
+                    }
+                }
+            }
+        }
+
+        return bytes;
+    }
+
+    private void growDown(int amount) {
+        int shift = Math.max(amount, fBuckets.length);
+        FBucket[] newBuckets = new FBucket[fBuckets.length + shift];
+        System.arraycopy(fBuckets, 0, newBuckets, shift, fBuckets.length);
+        fBuckets = newBuckets;
+        fBase -= shift;
+        minimumIndex += shift;
+    }
+
+    private void growUp(int minimumLength) {
+        fBuckets = Arrays.copyOf(fBuckets,
+                                 Math.max(minimumLength,
+                                          2 * fBuckets.length));
+    }
+
+    /**
+     * This class holds the entries with a particular f-value bucketed by their
+     * g-values. Each g-bucket is a stack of node keys.
+     */
+    private static final class FBucket {
+
+        private long[][] stacks = new long[INITIAL_CAPACITY][];
+        private int[] stackSizes = new int[INITIAL_CAPACITY];
+        private int gBase;
+        private int maximumIndex = -1;
+        private int size;
+        private int lastG;
+
+        void push(long key, int g) {
+            if (size == 0) {
+                gBase = g - stacks.length / 2;
+                maximumIndex = g - gBase;
+            }
+
+            int index = g - gBase;
+
+            if (index < 0) {
+                growDown(-index);
+                index = g - gBase;
+            } else if (index >= stacks.length) {
+                growUp(index + 1);
+            }
+
+            long[] stack = stacks[index];
+
+            if (stack == null) {
+                stack = stacks[index] = new long[INITIAL_CAPACITY];
+            } else if (stackSizes[index] == stack.length) {
+                stack = stacks[index] = Arrays.copyOf(stack, 2 * stack.length);
+            }
+
+            stack[stackSizes[index]++] = key;
+            size++;
+
+            if (index > maximumIndex) {
+                maximumIndex = index;
+            }
+        }
+
+        void clear() {
+            Arrays.fill(stackSizes, 0);
+            maximumIndex = -1;
+            size = 0;
+        }
+
+        long pop() {
+            while (stackSizes[maximumIndex] == 0) {
+                maximumIndex--;
+            }
+
+            size--;
+            lastG = gBase + maximumIndex;
+            return stacks[maximumIndex][--stackSizes[maximumIndex]];
+        }
+
+        private void growDown(int amount) {
+            int shift = Math.max(amount, stacks.length);
+            long[][] newStacks = new long[stacks.length + shift][];
+            int[] newStackSizes = new int[stacks.length + shift];
+            System.arraycopy(stacks, 0, newStacks, shift, stacks.length);
+            System.arraycopy(stackSizes, 0,
+                             newStackSizes, shift,
+                             stackSizes.length);
+            stacks = newStacks;
+            stackSizes = newStackSizes;
+            gBase -= shift;
+            maximumIndex += shift;
+        }
+
+        private void growUp(int minimumLength) {
+            int length = Math.max(minimumLength, 2 * stacks.length);
+            stacks = Arrays.copyOf(stacks, length);
+            stackSizes = Arrays.copyOf(stackSizes, length);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This exception stops a search whose budget is exceeded. It carries the 
+ * best lower bound on the optimal cost the search proved before stopping.
+ */
+final class BudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The lower bound of a search that proved none.
+     */
+    static final int NO_LOWER_BOUND = Integer.MIN_VALUE;
+
+    private final int lowerBound;
+
+    BudgetExceededException(int lowerBound) {
+        super(null, null, false, false);
+        this.lowerBound = lowerBound;
+    }
+
+    int getLowerBound() {
+        return lowerBound;
+    }
+}
@@ -0,0 +1,20 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class implements a flag for cancelling alignment runs from another 
+ * thread. The searches poll the token in their main loops, so a run stops 
+ * shortly after {@link #cancel()} is called. A token may be shared by many 
+ * runs.
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
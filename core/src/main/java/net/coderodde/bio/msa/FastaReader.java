@@ -0,0 +1,226 @@
+package net.coderodde.bio.msa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class reads multi-FASTA input record by record from a channel through 
+ * a fixed-size direct buffer, so the size of the input is not limited by the
+ * heap. Residues are validated and encoded as they are read; lower case 
+ * residues are accepted, and whitespace and the {@code '*'} terminator are 
+ * skipped. Lines starting with {@code ';'} before the first record are 
+ * treated as comments. The residues are read in the amino acid alphabet 
+ * unless another one is given; records in alphabets of at most four letters,
+ * such as the nucleotides, are packed two bits per residue as they are read.
+ */
+public final class FastaReader implements AutoCloseable {
+
+    private static final int BUFFER_CAPACITY = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = 
+            ByteBuffer.allocateDirect(BUFFER_CAPACITY);
+    private final Alphabet alphabet;
+    private final boolean packed;
+    private boolean endOfInput;
+
+    public FastaReader(Path path) throws IOException {
+        this(path, AminoAcidAlphabet.getAminoAcidAlphabet());
+    }
+
+    public FastaReader(Path path, Alphabet alphabet) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), alphabet);
+    }
+
+    public FastaReader(ReadableByteChannel channel) {
+        this(channel, AminoAcidAlphabet.getAminoAcidAlphabet());
+    }
+
+    public FastaReader(ReadableByteChannel channel, Alphabet alphabet) {
+        this.channel = channel;
+        this.alphabet = Objects.requireNonNull(alphabet, "Alphabet is null");
+        this.packed = alphabet.size() <= PackedSequence.MAXIMUM_CODES;
+        this.buffer.flip();
+    }
+
+    /**
+     * Reads all records of the FASTA file at {@code path}.
+     * 
+     * @param path the path of the file.
+     * @return the records in file order.
+     * @throws IOException if reading fails.
+     */
+    public static List<FastaRecord> readAll(Path path) throws IOException {
+        return readAll(path, AminoAcidAlphabet.getAminoAcidAlphabet());
+    }
+
+    /**
+     * Reads all records of the FASTA file at {@code path} in the given 
+     * alphabet.
+     * 
+     * @param path     the path of the file.
+     * @param alphabet the alphabet of the residues.
+     * @return the records in file order.
+     * @throws IOException if reading fails.
+     */
+    public static List<FastaRecord> readAll(Path path, Alphabet alphabet) 
+            throws IOException {
+        List<FastaRecord> records = new ArrayList<>();
+
+        try (FastaReader reader = new FastaReader(path, alphabet)) {
+            FastaRecord record;
+
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Reads the next record.
+     * 
+     * @return the next record, or {@code null} at the end of the input.
+     * @throws IOException if reading fails.
+     * @throws IllegalArgumentException if the input is not valid FASTA.
+     */
+    public FastaRecord read() throws IOException {
+        int b;
+
+        // Skip to the header line, ignoring blank and comment lines:
+        while ((b = next()) != '>') {
+            if (b == -1) {
+                return null;
+            }
+
+            if (b == ';') {
+                skipLine();
+            } else if (!isWhitespace(b)) {
+                throw new IllegalArgumentException(
+                        "Expected a FASTA header, found: " + (char) b);
+            }
+        }
+
+        String name = readLine();
+        byte[] residues = packed ? null : new byte[256];
+        long[] packedResidues = packed ? new long[8] : null;
+        int length = 0;
+        boolean lineStart = true;
+
+        while ((b = peek()) != -1) {
+            if (lineStart && b == '>') {
+                break;
+            }
+
+            next();
+            lineStart = b == '\n';
+
+            if (isWhitespace(b) || b == '*') {
+                continue;
+            }
+
+            int code = alphabet.getCode(Character.toUpperCase((char) b));
+
+            if (code < 0) {
+                throw new IllegalArgumentException(
+                        "Unknown residue: " + (char) b + 
+                        " in record " + name);
+            }
+
+            if (packed) {
+                packedResidues = 
+                        PackedSequence.append(packedResidues, length++, code);
+                continue;
+            }
+
+            if (length == residues.length) {
+                residues = Arrays.copyOf(residues, 2 * length);
+            }
+
+            residues[length++] = (byte) code;
+        }
+
+        return packed ?
+               new FastaRecord(name,
+                               alphabet,
+                               new PackedSequence(packedResidues, length)) :
+               new FastaRecord(name, 
+                               alphabet, 
+                               Arrays.copyOf(residues, length));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String readLine() throws IOException {
+        byte[] line = new byte[64];
+        int length = 0;
+        int b;
+
+        while ((b = next()) != -1 && b != '\n') {
+            if (length == line.length) {
+                line = Arrays.copyOf(line, 2 * length);
+            }
+
+            line[length++] = (byte) b;
+        }
+
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+
+        return new String(line, 0, length, StandardCharsets.US_ASCII).trim();
+    }
+
+    private void skipLine() throws IOException {
+        int b;
+
+        do {
+            b = next();
+        } while (b != -1 && b != '\n');
+    }
+
+    private int next() throws IOException {
+        int b = peek();
+
+        if (b != -1) {
+            buffer.get();
+        }
+
+        return b;
+    }
+
+    private int peek() throws IOException {
+        while (!buffer.hasRemaining()) {
+            if (endOfInput) {
+                return -1;
+            }
+
+            buffer.clear();
+
+            if (channel.read(buffer) == -1) {
+                endOfInput = true;
+            }
+
+            buffer.flip();
+        }
+
+        return buffer.get(buffer.position()) & 0xff;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,86 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class holds a single record of a FASTA file: the name on its header 
+ * line and its residues as residue codes of the alphabet it was read in. 
+ * The residues of alphabets of at most four letters are stored packed two 
+ * bits per residue.
+ */
+public final class FastaRecord {
+
+    private final String name;
+    private final Alphabet alphabet;
+
+    /**
+     * The residue codes one byte per residue, or {@code null} if they are 
+     * packed.
+     */
+    private final byte[] residues;
+
+    /**
+     * The packed residue codes, or {@code null} if they are not packed.
+     */
+    private final PackedSequence packedResidues;
+
+    FastaRecord(String name, Alphabet alphabet, byte[] residues) {
+        this.name = name;
+        this.alphabet = alphabet;
+        this.residues = residues;
+        this.packedResidues = null;
+    }
+
+    FastaRecord(String name, Alphabet alphabet, PackedSequence residues) {
+        this.name = name;
+        this.alphabet = alphabet;
+        this.residues = null;
+        this.packedResidues = residues;
+    }
+
+    /**
+     * Returns the header line of this record without the leading 
+     * {@code '>'}.
+     * 
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    public String getSequence() {
+        char[] sequence = new char[length()];
+
+        for (int i = 0; i < sequence.length; ++i) {
+            sequence[i] = alphabet.getCharacter(getResidue(i));
+        }
+
+        return new String(sequence);
+    }
+
+    public int length() {
+        return residues != null ? residues.length : packedResidues.length();
+    }
+
+    /**
+     * Returns the residue codes one byte per residue. Packed residues are 
+     * unpacked into a new array.
+     */
+    byte[] getResidues() {
+        return residues != null ? residues : packedResidues.unpack();
+    }
+
+    /**
+     * Returns the packed residue codes, or {@code null} if the residues are
+     * not packed.
+     */
+    PackedSequence getPackedResidues() {
+        return packedResidues;
+    }
+
+    private int getResidue(int index) {
+        return residues != null ? residues[index] : packedResidues.get(index);
+    }
+}
@@ -0,0 +1,329 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class implements divide-and-conquer frontier search in the style of
+ * Korf and Zhang. The search keeps only the open nodes: an expanded node is
+ * removed from memory, and the operators leading back into the closed region
+ * are remembered as used operator bits on the frontier nodes instead. Since
+ * the lattice is directed, expanding a node also creates a dummy entry for
+ * each of its parents that has not been generated yet, so that the parent
+ * will not regenerate the node later.
+ * <p>
+ * Every node also carries the key of its relay node, the node at which its
+ * best path crosses the middle layer of the lattice. When the target is
+ * reached, its relay is a node on an optimal path, and the alignment is
+ * recovered by solving the two halves recursively. Small enough halves are
+ * solved by plain A*.
+ * <p>
+ * On lattices too large for a packed key, the codec interns the coordinates
+ * of the nodes. The frontier table, the open list entries and the relays each
+ * hold a reference to the keys they store, so that the codec forgets a node
+ * once nothing refers to it, and stays as small as the frontier.
+ */
+final class FrontierSearch {
+
+    /**
+     * Subproblems with at most this many lattice nodes are solved by A*.
+     */
+    private static final long BASE_CASE_VOLUME = 1L << 20;
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final HeuristicFunction heuristicFunction;
+    private final AlignmentOptions options;
+    private final SearchStatistics statistics;
+    private final SearchBudget budget;
+
+    /**
+     * {@code true} if this search solves the whole instance rather than a 
+     * subproblem. Only the bounds of the top level search bound the cost of
+     * the whole alignment.
+     */
+    private final boolean topLevel;
+
+    FrontierSearch(MultipleSequenceAlignmentInstance instance,
+                   HeuristicFunction heuristicFunction,
+                   AlignmentOptions options,
+                   SearchStatistics statistics,
+                   SearchBudget budget) {
+        this(instance, heuristicFunction, options, statistics, budget, true);
+    }
+
+    private FrontierSearch(MultipleSequenceAlignmentInstance instance,
+                           HeuristicFunction heuristicFunction,
+                           AlignmentOptions options,
+                           SearchStatistics statistics,
+                           SearchBudget budget,
+                           boolean topLevel) {
+        this.instance = instance;
+        this.heuristicFunction = heuristicFunction;
+        this.options = options;
+        this.statistics = statistics;
+        this.budget = budget;
+        this.topLevel = topLevel;
+    }
+
+    Alignment search() {
+        if (getVolume(instance) <= BASE_CASE_VOLUME) {
+            return search(instance, heuristicFunction);
+        }
+
+        int dimensions = instance.getSequenceCount();
+        LatticeCoordinateCodec codec = LatticeCoordinateCodec.create(instance);
+        FrontierTable table = new FrontierTable(dimensions);
+        BucketOpenList open = new BucketOpenList();
+        NeighborCursor cursor = new NeighborCursor(instance);
+        HopCostEngine hopCostEngine = new HopCostEngine(instance);
+        int[] coordinates = new int[dimensions];
+        long[] currentUsedOperators = new long[table.getWordsPerNode()];
+        int[] targetCoordinates = instance.getTargetNode().getCoordinates();
+        int parentOperatorOffset = 1 << dimensions;
+
+        // The relay layer lies halfway between the source and the target:
+        int relayDepth = 0;
+
+        for (int coordinate : targetCoordinates) {
+            relayDepth += coordinate;
+        }
+
+        relayDepth = Math.max(1, relayDepth / 2);
+
+        long sourceKey =
+                codec.encode(instance.getSourceNode().getCoordinates());
+        long targetKey = codec.encode(targetCoordinates);
+        codec.retain(targetKey);
+
+        table.setCost(insert(table, codec, sourceKey),
+                      0,
+                      FrontierTable.NO_RELAY);
+        push(open, codec, sourceKey,
+             heuristicFunction.get(instance.getSourceNode()),
+             0);
+
+        while (true) {
+            long currentKey = open.pop();
+            int currentSlot = table.find(currentKey);
+
+            // A live node is still referenced by the table:
+            codec.release(currentKey);
+
+            if (currentSlot == -1
+                    || table.getCost(currentSlot) < open.getLastG()) {
+                // Already expanded, or an outdated entry.
+                statistics.countDuplicatePop();
+                continue;
+            }
+
+            int currentCost = table.getCost(currentSlot);
+            long currentRelay = table.getRelay(currentSlot);
+
+            if (currentKey == targetKey) {
+                statistics.addMemory(table, open);
+
+                if (currentRelay == targetKey) {
+                    // The last hop jumps over the relay layer, so splitting
+                    // makes no progress. This happens only on tiny lattices.
+                    return search(instance, heuristicFunction);
+                }
+
+                return split(codec, currentRelay, currentCost);
+            }
+
+            if (budget.isExceeded(statistics.getExpansions(),
+                                  SearchStatistics.getBytes(table, open)
+                                          + codec.getBytes())) {
+                throw new BudgetExceededException(
+                        topLevel ? 
+                        open.getLastF() : 
+                        BudgetExceededException.NO_LOWER_BOUND);
+            }
+
+            statistics.countExpansion();
+            statistics.updatePeaks(open.size() + 1, 0L);
+            codec.decode(currentKey, coordinates);
+            int currentDepth = 0;
+
+            for (int coordinate : coordinates) {
+                currentDepth += coordinate;
+            }
+
+            // Generate the children that have not been expanded yet:
+            table.copyUsedOperators(currentSlot, currentUsedOperators);
+            cursor.loadChildren(coordinates);
+            hopCostEngine.load(coordinates);
+
+            while (cursor.next()) {
+                int move = cursor.getMove();
+                int weight = hopCostEngine.update(cursor.getFlippedDimension(),
+                                                  move);
+
+                if ((currentUsedOperators[move >>> 6] & (1L << move)) != 0) {
+                    continue;
+                }
+
+                int[] childCoordinates = cursor.getCoordinates();
+                long childKey = codec.encode(childCoordinates);
+                int childSlot = insert(table, codec, childKey);
+                statistics.countGeneratedNodes(1);
+                int tentativeCost = currentCost + weight;
+
+                table.setUsed(childSlot, parentOperatorOffset + move);
+
+                if (table.getCost(childSlot) > tentativeCost) {
+                    boolean crossesRelayLayer =
+                            currentDepth < relayDepth &&
+                            currentDepth + Integer.bitCount(move)
+                                >= relayDepth;
+
+                    setCost(table,
+                            codec,
+                            childSlot,
+                            tentativeCost,
+                            crossesRelayLayer ? childKey : currentRelay);
+                    push(open,
+                         codec,
+                         childKey,
+                         tentativeCost +
+                                 heuristicFunction.get(childCoordinates),
+                         tentativeCost);
+                }
+            }
+
+            // Make sure the parents never regenerate the current node:
+            cursor.loadParents(coordinates);
+            currentSlot = table.find(currentKey);
+
+            while (cursor.next()) {
+                int move = cursor.getMove();
+
+                if (table.isUsed(currentSlot, parentOperatorOffset + move)) {
+                    continue;
+                }
+
+                int parentSlot = insert(table,
+                                        codec,
+                                        codec.encode(cursor.getCoordinates()));
+                table.setUsed(parentSlot, move);
+                currentSlot = table.find(currentKey);
+            }
+
+            table.remove(currentSlot);
+            codec.release(currentKey);
+
+            if (currentRelay != FrontierTable.NO_RELAY) {
+                codec.release(currentRelay);
+            }
+        }
+    }
+
+    /**
+     * Inserts the key into the table, retaining it if it is new.
+     */
+    private static int insert(FrontierTable table,
+                              LatticeCoordinateCodec codec,
+                              long key) {
+        int size = table.size();
+        int slot = table.insert(key);
+
+        if (table.size() > size) {
+            codec.retain(key);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Updates the cost and the relay of a node, moving the reference from its
+     * previous relay to the new one.
+     */
+    private static void setCost(FrontierTable table,
+                                LatticeCoordinateCodec codec,
+                                int slot,
+                                int cost,
+                                long relay) {
+        long previousRelay = table.getRelay(slot);
+
+        if (relay != previousRelay) {
+            codec.retain(relay);
+
+            if (previousRelay != FrontierTable.NO_RELAY) {
+                codec.release(previousRelay);
+            }
+        }
+
+        table.setCost(slot, cost, relay);
+    }
+
+    private static void push(BucketOpenList open,
+                             LatticeCoordinateCodec codec,
+                             long key,
+                             int f,
+                             int g) {
+        codec.retain(key);
+        open.push(key, f, g);
+    }
+
+    /**
+     * Solves the subproblems before and after the relay node, and joins their
+     * alignments.
+     */
+    private Alignment split(LatticeCoordinateCodec codec,
+                            long relayKey,
+                            int cost) {
+        int[] sourceCoordinates = instance.getSourceNode().getCoordinates();
+        int[] targetCoordinates = instance.getTargetNode().getCoordinates();
+        int[] relayCoordinates = new int[sourceCoordinates.length];
+        codec.decode(relayKey, relayCoordinates);
+
+        Alignment head = solve(sourceCoordinates, relayCoordinates);
+        Alignment tail = solve(relayCoordinates, targetCoordinates);
+        return Alignment.concatenate(head, tail, cost);
+    }
+
+    private Alignment solve(int[] from, int[] to) {
+        MultipleSequenceAlignmentInstance subinstance =
+                instance.getSubinstance(from, to);
+        SearchBudget subbudget = 
+                budget.reserve(subinstance.getHeuristicBytes(options));
+
+        return new FrontierSearch(
+                subinstance,
+                subinstance.computeHeuristicFunction(options, 
+                                                     statistics, 
+                                                     subbudget),
+                options,
+                statistics,
+                subbudget,
+                false).search();
+    }
+
+    /**
+     * Solves a base case by A*.
+     */
+    private Alignment search(MultipleSequenceAlignmentInstance instance,
+                             HeuristicFunction heuristicFunction) {
+        try {
+            return instance.search(heuristicFunction, statistics, budget);
+        } catch (BudgetExceededException ex) {
+            if (topLevel) {
+                throw ex;
+            }
+
+            throw new BudgetExceededException(
+                    BudgetExceededException.NO_LOWER_BOUND);
+        }
+    }
+
+    private static long getVolume(MultipleSequenceAlignmentInstance instance) {
+        long volume = 1L;
+
+        for (int i = 0; i < instance.getSequenceCount(); ++i) {
+            volume *= instance.getSequenceLength(i) + 1;
+
+            if (volume > BASE_CASE_VOLUME) {
+                return volume;
+            }
+        }
+
+        return volume;
+    }
+}
@@ -0,0 +1,203 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+/**
+ * This class implements the open-addressing hash table of frontier search.
+ * Besides the best known cost, each node carries its relay node key and a bit
+ * set of used operators. For a lattice with {@code k} dimensions, the bit
+ * {@code move} marks the child reached via {@code move} as expanded, and the
+ * bit {@code 2^k + move} marks the parent reached via {@code move} as
+ * expanded. Unlike {@link SearchStateTable}, this table supports removal,
+ * since expanded nodes are dropped.
+ * <p>
+ * Slot indices stay valid until the next call to {@link #insert(long)} or
+ * {@link #remove(int)}.
+ */
+final class FrontierTable {
+
+    static final int UNREACHED = Integer.MAX_VALUE;
+    static final long NO_RELAY = -1L;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long EMPTY = -1L;
+
+    /**
+     * The number of {@code long} words holding the used operator bits of a
+     * node.
+     */
+    private final int words;
+
+    private long[] keys;
+    private int[] costs;
+    private long[] relays;
+    private long[] usedOperators;
+    private int size;
+    private int maximumSize;
+
+    FrontierTable(int dimensions) {
+        this.words = Math.max(1, (2 << dimensions) / Long.SIZE);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    int insert(long key) {
+        if (size == maximumSize) {
+            rehash();
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        costs[slot] = UNREACHED;
+        relays[slot] = NO_RELAY;
+        Arrays.fill(usedOperators, slot * words, (slot + 1) * words, 0L);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Removes the node at the given slot. The following entries of the probe
+     * sequence are shifted back so that no tombstones are needed.
+     *
+     * @param slot the slot of the node to remove.
+     */
+    void remove(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int current = (slot + 1) & mask;
+
+        while (keys[current] != EMPTY) {
+            int home = hash(keys[current]) & mask;
+
+            // Move the entry to the hole unless its home lies cyclically in
+            // (hole, current]:
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                move(current, hole);
+                hole = current;
+            }
+
+            current = (current + 1) & mask;
+        }
+
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes taken by the arrays of this table.
+     */
+    long getBytes() {
+        return (long) keys.length * 
+               (2 * Long.BYTES + Integer.BYTES + words * Long.BYTES);
+    }
+
+    int getCost(int slot) {
+        return costs[slot];
+    }
+
+    long getRelay(int slot) {
+        return relays[slot];
+    }
+
+    void setCost(int slot, int cost, long relay) {
+        costs[slot] = cost;
+        relays[slot] = relay;
+    }
+
+    int getWordsPerNode() {
+        return words;
+    }
+
+    void copyUsedOperators(int slot, long[] target) {
+        System.arraycopy(usedOperators, slot * words, target, 0, words);
+    }
+
+    boolean isUsed(int slot, int operator) {
+        return (usedOperators[slot * words + (operator >>> 6)]
+                & (1L << operator)) != 0;
+    }
+
+    void setUsed(int slot, int operator) {
+        usedOperators[slot * words + (operator >>> 6)] |= 1L << operator;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        costs[to] = costs[from];
+        relays[to] = relays[from];
+        System.arraycopy(usedOperators, from * words,
+                         usedOperators, to * words,
+                         words);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        costs = new int[capacity];
+        relays = new long[capacity];
+        usedOperators = new long[capacity * words];
+        maximumSize = capacity / 4 * 3;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCosts = costs;
+        long[] oldRelays = relays;
+        long[] oldUsedOperators = usedOperators;
+
+        allocate(2 * oldKeys.length);
+        int mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+
+            int slot = hash(oldKeys[i]) & mask;
+
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            costs[slot] = oldCosts[i];
+            relays[slot] = oldRelays[i];
+            System.arraycopy(oldUsedOperators, i * words,
+                             usedOperators, slot * words,
+                             words);
+        }
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int)(key ^ (key >>> 32));
+    }
+}
@@ -0,0 +1,83 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class computes a fast fallback alignment for runs whose budget is 
+ * exceeded. Starting at the source node, it always moves to the child 
+ * minimizing the hop cost plus the heuristic estimate of the rest, so it 
+ * follows a single path through the lattice without backtracking and takes 
+ * time linear in the total sequence length times {@code 2^k}.
+ */
+final class GreedyAligner {
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final HeuristicFunction heuristicFunction;
+
+    GreedyAligner(MultipleSequenceAlignmentInstance instance,
+                  HeuristicFunction heuristicFunction) {
+        this.instance = instance;
+        this.heuristicFunction = heuristicFunction;
+    }
+
+    /**
+     * Computes the greedy alignment.
+     * 
+     * @param lowerBound the best lower bound known on the optimal cost, or 
+     *                   {@link BudgetExceededException#NO_LOWER_BOUND}.
+     * @return the greedy alignment carrying the best lower bound known.
+     */
+    Alignment align(int lowerBound) {
+        NeighborCursor cursor = new NeighborCursor(instance);
+        HopCostEngine hopCostEngine = new HopCostEngine(instance);
+        int[] coordinates = instance.getSourceNode().getCoordinates();
+        int[] targetCoordinates = instance.getTargetNode().getCoordinates();
+        int remaining = 0;
+
+        for (int coordinate : targetCoordinates) {
+            remaining += coordinate;
+        }
+
+        // Every move consumes at least one residue:
+        int[] moves = new int[remaining];
+        int length = 0;
+        int cost = 0;
+
+        // The heuristic at the source bounds the optimal cost from below:
+        lowerBound = Math.max(lowerBound, heuristicFunction.get(coordinates));
+
+        while (remaining > 0) {
+            cursor.loadChildren(coordinates);
+            hopCostEngine.load(coordinates);
+            int bestMove = 0;
+            int bestWeight = 0;
+            int bestEstimate = Integer.MAX_VALUE;
+
+            while (cursor.next()) {
+                int weight = hopCostEngine.update(cursor.getFlippedDimension(),
+                                                  cursor.getMove());
+                int estimate = weight + 
+                               heuristicFunction.get(cursor.getCoordinates());
+
+                if (estimate < bestEstimate) {
+                    bestEstimate = estimate;
+                    bestMove = cursor.getMove();
+                    bestWeight = weight;
+                }
+            }
+
+            for (int i = 0; i < coordinates.length; ++i) {
+                if ((bestMove & (1 << i)) != 0) {
+                    coordinates[i]++;
+                    remaining--;
+                }
+            }
+
+            moves[length++] = bestMove;
+            cost += bestWeight;
+        }
+
+        return instance.createAlignment(moves, 
+                                        length, 
+                                        cost, 
+                                        Math.min(cost, lowerBound));
+    }
+}
@@ -0,0 +1,24 @@
+package net.coderodde.bio.msa;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This JFR event spans the computation of a heuristic function. It is 
+ * recorded only when a flight recording enables it.
+ */
+@Name("net.coderodde.bio.msa.HeuristicBuild")
+@Label("Heuristic Build")
+@Category({"Sequence Alignment"})
+@Description("Computation of the heuristic tables of an alignment")
+final class HeuristicBuildEvent extends Event {
+
+    @Label("Sequences")
+    int sequences;
+
+    @Label("Total Length")
+    long totalLength;
+}
@@ -0,0 +1,125 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+final class HeuristicFunction {
+
+    /**
+     * The pairwise tables. The entry {@code tables[i][j][x * (m + 1) + y]}, 
+     * where {@code i < j} and {@code m} is the length of the jth sequence, 
+     * holds the optimal cost of aligning the suffixes of the ith and jth 
+     * sequences starting at {@code x} and {@code y}. The pairs within a 
+     * triple have no table.
+     */
+    private final int[][][] tables;
+
+    /**
+     * The row lengths of the pairwise tables, i.e., the sequence lengths plus
+     * one.
+     */
+    private final int[] rowLengths;
+
+    /**
+     * The pairs of dimensions not covered by a triple table, flattened, each
+     * followed by the product of the multiplicities of its dimensions.
+     */
+    private int[] pairs;
+
+    /**
+     * The three-way tables. No two of them share a dimension.
+     */
+    private TripleTable[] triples = new TripleTable[0];
+
+    HeuristicFunction(MultipleSequenceAlignmentInstance instance) {
+        int sequences = instance.getSequenceCount();
+        this.tables = new int[sequences][sequences][];
+        this.rowLengths = new int[sequences];
+
+        for (int i = 0; i < sequences; ++i) {
+            this.rowLengths[i] = instance.getSequenceLength(i) + 1;
+        }
+
+        this.pairs = new int[3 * sequences * (sequences - 1) / 2];
+        int index = 0;
+
+        for (int dimension1 = 0; dimension1 < sequences; ++dimension1) {
+            for (int dimension2 = dimension1 + 1; 
+                    dimension2 < sequences; 
+                    ++dimension2) {
+                pairs[index++] = dimension1;
+                pairs[index++] = dimension2;
+                pairs[index++] = instance.getMultiplicity(dimension1) *
+                                 instance.getMultiplicity(dimension2);
+            }
+        }
+    }
+
+    void putPartial(int dimension1, int dimension2, int[] table) {
+        tables[dimension1][dimension2] = table;
+    }
+
+    /**
+     * Replaces the three pairwise terms within the dimensions of 
+     * {@code triple}, which have no tables, by the triple table. Since the 
+     * optimal three-way cost is at least the sum of the optimal pairwise 
+     * costs, the heuristic stays admissible and consistent, and gets 
+     * tighter. The dimensions of the triple must have multiplicity one.
+     * 
+     * @param triple the triple table, disjoint from the triples put so far.
+     */
+    void putTriple(TripleTable triple) {
+        int[] remainingPairs = new int[pairs.length];
+        int size = 0;
+
+        for (int i = 0; i < pairs.length; i += 3) {
+            if (!triple.covers(pairs[i]) || !triple.covers(pairs[i + 1])) {
+                remainingPairs[size++] = pairs[i];
+                remainingPairs[size++] = pairs[i + 1];
+                remainingPairs[size++] = pairs[i + 2];
+            }
+        }
+
+        pairs = Arrays.copyOf(remainingPairs, size);
+        triples = Arrays.copyOf(triples, triples.length + 1);
+        triples[triples.length - 1] = triple;
+    }
+
+    /**
+     * Returns {@code true} if the pair of dimensions has a pairwise table. 
+     * The pairs within a triple have none.
+     */
+    boolean hasPartial(int dimension1, int dimension2) {
+        return tables[dimension1][dimension2] != null;
+    }
+
+    int getPartial(int dimension1, 
+                   int dimension2, 
+                   int coordinate1, 
+                   int coordinate2) {
+        return tables[dimension1][dimension2]
+                [coordinate1 * rowLengths[dimension2] + coordinate2];
+    }
+
+    int get(int[] coordinates) {
+        int cost = 0;
+
+        for (int i = 0; i < pairs.length; i += 3) {
+            int dimension1 = pairs[i];
+            int dimension2 = pairs[i + 1];
+            cost += pairs[i + 2] * 
+                    tables[dimension1][dimension2]
+                    [coordinates[dimension1] * rowLengths[dimension2] + 
+                     coordinates[dimension2]];
+        }
+
+        for (TripleTable triple : triples) {
+            cost += triple.get(coordinates);
+        }
+
+        return cost;
+    }
+
+    int get(LatticeNode node) {
+        return get(node.getCoordinates());
+    }
+}
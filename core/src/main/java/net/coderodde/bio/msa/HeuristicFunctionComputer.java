@@ -0,0 +1,530 @@
+package net.coderodde.bio.msa;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+final class HeuristicFunctionComputer {
+
+    /**
+     * The largest number of entries in a table. Some virtual machines keep 
+     * header words in arrays, so it is a little below 
+     * {@code Integer.MAX_VALUE}.
+     */
+    static final int MAXIMUM_TABLE_ENTRIES = Integer.MAX_VALUE - 8;
+
+    private final AlignmentOptions options;
+
+    HeuristicFunctionComputer(AlignmentOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Computes the pairwise and the triple tables of the instance. The 
+     * triples are chosen first, and no pairwise table is built for a pair 
+     * within a triple, so the triple tables take at most 
+     * {@link AlignmentOptions#getTripleHeuristicMemory()} bytes more than 
+     * the pairwise heuristic. Each task polls the time budget and the 
+     * cancellation token before it builds its table, so that an expired run
+     * stops after the tables under way.
+     * 
+     * @param instance the instance.
+     * @param budget   the budget of the run.
+     * @return the heuristic function.
+     * @throws BudgetExceededException if the budget runs out.
+     * @throws IllegalArgumentException if a pairwise table would have more 
+     *         than {@link #MAXIMUM_TABLE_ENTRIES} entries.
+     */
+    HeuristicFunction computeHeuristicFunction(
+            MultipleSequenceAlignmentInstance instance,
+            SearchBudget budget) {
+        int sequences = instance.getSequenceCount();
+        byte[][] encodedSequences = instance.getEncodedSequences();
+        byte[] costIdentity = getCostIdentity(instance);
+        List<int[]> triples = getTriples(instance);
+        int[] tripleIndices = getTripleIndices(sequences, triples);
+        List<CompletableFuture<TripleTable>> tripleFutures = 
+                new ArrayList<>();
+
+        // Reject the tables too large for an array before building any:
+        for (int dimension1 = 0; dimension1 < sequences; dimension1++) {
+            for (int dimension2 = dimension1 + 1; 
+                    dimension2 < sequences; 
+                    dimension2++) {
+                if (!isCovered(tripleIndices, dimension1, dimension2)) {
+                    getTableSize(instance.getSequenceLength(dimension1) + 1,
+                                 instance.getSequenceLength(dimension2) + 1);
+                }
+            }
+        }
+
+        // The triple tables are the largest, so they are started first:
+        for (int[] triple : triples) {
+            tripleFutures.add(CompletableFuture.supplyAsync(
+                    () -> {
+                        checkBudget(budget);
+                        return new TripleTable(instance, 
+                                               encodedSequences,
+                                               triple[0], 
+                                               triple[1], 
+                                               triple[2]);
+                    },
+                    options.getHeuristicExecutor()));
+        }
+
+        List<CompletableFuture<int[]>> futures = 
+                new ArrayList<>(sequences * (sequences - 1) / 2);
+
+        for (int dimension1 = 0; dimension1 < sequences; dimension1++) {
+            for (int dimension2 = dimension1 + 1; 
+                    dimension2 < sequences; 
+                    dimension2++) {
+                if (isCovered(tripleIndices, dimension1, dimension2)) {
+                    continue;
+                }
+
+                int d1 = dimension1;
+                int d2 = dimension2;
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> {
+                            checkBudget(budget);
+                            return getPartialHeuristicFunction(
+                                    d1, 
+                                    d2, 
+                                    instance,
+                                    encodedSequences,
+                                    costIdentity);
+                        },
+                        options.getHeuristicExecutor()));
+            }
+        }
+
+        // Joining the futures on this thread publishes the tables safely. The
+        // futures are in the order of the pairs:
+        HeuristicFunction heuristicFunction = new HeuristicFunction(instance);
+        Iterator<CompletableFuture<int[]>> iterator = futures.iterator();
+
+        for (int dimension1 = 0; dimension1 < sequences; dimension1++) {
+            for (int dimension2 = dimension1 + 1; 
+                    dimension2 < sequences; 
+                    dimension2++) {
+                if (isCovered(tripleIndices, dimension1, dimension2)) {
+                    continue;
+                }
+
+                heuristicFunction.putPartial(
+                        dimension1, 
+                        dimension2,
+                        join(iterator.next()));
+            }
+        }
+
+        for (CompletableFuture<TripleTable> tripleFuture : tripleFutures) {
+            heuristicFunction.putTriple(join(tripleFuture));
+        }
+
+        return heuristicFunction;
+    }
+
+    /**
+     * Returns the size of the tables 
+     * {@link #computeHeuristicFunction(MultipleSequenceAlignmentInstance, 
+     * SearchBudget)} builds for the instance, computed from the sequence 
+     * lengths alone.
+     */
+    long getBytes(MultipleSequenceAlignmentInstance instance) {
+        int sequences = instance.getSequenceCount();
+        List<int[]> triples = getTriples(instance);
+        int[] tripleIndices = getTripleIndices(sequences, triples);
+        long entries = 0L;
+
+        for (int dimension1 = 0; dimension1 < sequences; dimension1++) {
+            for (int dimension2 = dimension1 + 1; 
+                    dimension2 < sequences; 
+                    dimension2++) {
+                if (isCovered(tripleIndices, dimension1, dimension2)) {
+                    continue;
+                }
+
+                entries += getTableEntries(instance, dimension1, dimension2);
+            }
+        }
+
+        for (int[] triple : triples) {
+            entries += TripleTable.getVolume(instance, 
+                                             triple[0], 
+                                             triple[1], 
+                                             triple[2]);
+        }
+
+        return entries * Integer.BYTES;
+    }
+
+    /**
+     * Returns the index of the triple of each dimension in 
+     * {@code triples}, or -1 for the dimensions in none.
+     */
+    private static int[] getTripleIndices(int sequences, List<int[]> triples) {
+        int[] tripleIndices = new int[sequences];
+        Arrays.fill(tripleIndices, -1);
+
+        for (int i = 0; i < triples.size(); ++i) {
+            for (int dimension : triples.get(i)) {
+                tripleIndices[dimension] = i;
+            }
+        }
+
+        return tripleIndices;
+    }
+
+    /**
+     * Returns {@code true} if the pair of dimensions lies within a triple,
+     * whose table replaces the pairwise table.
+     */
+    private static boolean isCovered(int[] tripleIndices, 
+                                     int dimension1, 
+                                     int dimension2) {
+        return tripleIndices[dimension1] != -1 && 
+               tripleIndices[dimension1] == tripleIndices[dimension2];
+    }
+
+    /**
+     * Returns the number of entries in a table of the given numbers of rows
+     * and columns.
+     * 
+     * @throws IllegalArgumentException if it exceeds 
+     *         {@link #MAXIMUM_TABLE_ENTRIES}.
+     */
+    static int getTableSize(int rows, int columns) {
+        long entries = (long) rows * columns;
+
+        if (entries > MAXIMUM_TABLE_ENTRIES) {
+            throw new IllegalArgumentException(
+                    "A table of " + rows + " x " + columns + 
+                    " entries exceeds the largest array; the sequences are " +
+                    "too long to align.");
+        }
+
+        return (int) entries;
+    }
+
+    private static long getTableEntries(
+            MultipleSequenceAlignmentInstance instance,
+            int dimension1,
+            int dimension2) {
+        return (instance.getSequenceLength(dimension1) + 1L) *
+               (instance.getSequenceLength(dimension2) + 1L);
+    }
+
+    private static void checkBudget(SearchBudget budget) {
+        if (budget.isExpired()) {
+            throw new BudgetExceededException(
+                    BudgetExceededException.NO_LOWER_BOUND);
+        }
+    }
+
+    /**
+     * Joins the future, rethrowing a {@link BudgetExceededException} of its
+     * task as is.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof BudgetExceededException) {
+                throw (BudgetExceededException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Computes the optimal cost of aligning each pair of sequences. Unlike 
+     * the heuristic tables, only two rows of each pairwise table are kept, so
+     * that the costs of hundreds of sequences fit in memory. Cached tables 
+     * are used if present, but the costs are not cached.
+     * 
+     * @param instance the instance whose sequences to compare.
+     * @return the symmetric matrix of the pairwise costs.
+     */
+    int[][] computePairwiseCosts(MultipleSequenceAlignmentInstance instance) {
+        int sequences = instance.getSequenceCount();
+        byte[][] encodedSequences = instance.getEncodedSequences();
+        PairwiseTableCache cache = options.getPairwiseTableCache();
+        byte[] costIdentity = cache == null ? null : getCostIdentity(instance);
+        int[][] costs = new int[sequences][sequences];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[sequences];
+
+        // A task per row keeps the number of tasks linear:
+        for (int dimension1 = 0; dimension1 < sequences; dimension1++) {
+            int d1 = dimension1;
+            futures[d1] = CompletableFuture.runAsync(() -> {
+                for (int d2 = d1 + 1; d2 < sequences; d2++) {
+                    costs[d1][d2] = getPairwiseCost(d1, 
+                                                    d2, 
+                                                    instance, 
+                                                    encodedSequences,
+                                                    costIdentity);
+                }
+            }, options.getHeuristicExecutor());
+        }
+
+        // Joining the futures on this thread publishes the costs safely:
+        CompletableFuture.allOf(futures).join();
+
+        for (int dimension1 = 0; dimension1 < sequences; dimension1++) {
+            for (int dimension2 = 0; dimension2 < dimension1; dimension2++) {
+                costs[dimension1][dimension2] = costs[dimension2][dimension1];
+            }
+        }
+
+        return costs;
+    }
+
+    private int getPairwiseCost(int dimension1,
+                                int dimension2,
+                                MultipleSequenceAlignmentInstance instance,
+                                byte[][] encodedSequences,
+                                byte[] costIdentity) {
+        if (costIdentity != null) {
+            int[] table = options.getPairwiseTableCache().get(
+                    getCacheKey(instance.getCharacters(dimension1),
+                                instance.getCharacters(dimension2),
+                                costIdentity));
+
+            if (table != null) {
+                return table[0];
+            }
+        }
+
+        return computePairwiseCost(encodedSequences[dimension1],
+                                   encodedSequences[dimension2],
+                                   instance);
+    }
+
+    // The same recurrence as in computePartialHeuristicFunction, keeping only
+    // the current row and the one below it. This runs for every pair of 
+    // sequences, so the residue costs are copied to a local table and the 
+    // cell to the right is kept in a local.
+    static int computePairwiseCost(
+            byte[] sequence1,
+            byte[] sequence2,
+            MultipleSequenceAlignmentInstance instance) {
+        int gapPenalty = instance.getGapPenalty();
+        int codes = instance.getGapCode();
+        int[] residueCosts = new int[codes * codes];
+        int[] row = new int[sequence2.length + 1];
+        int[] nextRow = new int[sequence2.length + 1];
+
+        for (int code1 = 0; code1 < codes; ++code1) {
+            for (int code2 = 0; code2 < codes; ++code2) {
+                residueCosts[code1 * codes + code2] = 
+                        instance.getResidueCost(code1, code2);
+            }
+        }
+
+        for (int y = sequence2.length - 1; y >= 0; --y) {
+            nextRow[y] = nextRow[y + 1] + gapPenalty;
+        }
+
+        for (int x = sequence1.length - 1; x >= 0; --x) {
+            int costOffset = sequence1[x] * codes;
+            int right = nextRow[sequence2.length] + gapPenalty;
+            row[sequence2.length] = right;
+
+            for (int y = sequence2.length - 1; y >= 0; --y) {
+                int cost = nextRow[y + 1] + 
+                           residueCosts[costOffset + sequence2[y]];
+
+                cost = Math.min(cost, nextRow[y] + gapPenalty);
+                cost = Math.min(cost, right + gapPenalty);
+                row[y] = right = cost;
+            }
+
+            int[] tmp = row;
+            row = nextRow;
+            nextRow = tmp;
+        }
+
+        return nextRow[0];
+    }
+
+    private int[] getPartialHeuristicFunction(
+            int dimension1,
+            int dimension2,
+            MultipleSequenceAlignmentInstance instance,
+            byte[][] encodedSequences,
+            byte[] costIdentity) {
+        PairwiseTableCache cache = options.getPairwiseTableCache();
+
+        if (cache == null) {
+            return computePartialHeuristicFunction(
+                    encodedSequences[dimension1], 
+                    encodedSequences[dimension2], 
+                    instance);
+        }
+
+        String key = getCacheKey(instance.getCharacters(dimension1),
+                                 instance.getCharacters(dimension2),
+                                 costIdentity);
+        return cache.computeIfAbsent(
+                key,
+                () -> computePartialHeuristicFunction(
+                        encodedSequences[dimension1], 
+                        encodedSequences[dimension2], 
+                        instance));
+    }
+
+    /**
+     * Returns the bytes identifying the costs of the instance: the gap 
+     * penalty followed by the cost of each pair of residue codes.
+     */
+    private static byte[] getCostIdentity(
+            MultipleSequenceAlignmentInstance instance) {
+        int codes = instance.getGapCode() + 1;
+        byte[] identity = new byte[Integer.BYTES * (1 + codes * codes)];
+        int index = 0;
+        index = putInt(identity, index, instance.getGapPenalty());
+
+        for (int code1 = 0; code1 < codes; ++code1) {
+            for (int code2 = 0; code2 < codes; ++code2) {
+                index = putInt(identity, 
+                               index, 
+                               instance.getResidueCost(code1, code2));
+            }
+        }
+
+        return identity;
+    }
+
+    private static int putInt(byte[] array, int index, int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            array[index++] = (byte)(value >>> shift);
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the SHA-256 hex digest of the sequence pair, given by the ASCII
+     * bytes of its characters, and the costs. The sequences are 
+     * length-prefixed so that no two pairs collide trivially.
+     */
+    private static String getCacheKey(byte[] bytes1, 
+                                      byte[] bytes2,
+                                      byte[] costIdentity) {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(ex);
+        }
+
+        byte[] lengths = new byte[2 * Integer.BYTES];
+        putInt(lengths, putInt(lengths, 0, bytes1.length), bytes2.length);
+        digest.update(lengths);
+        digest.update(bytes1);
+        digest.update(bytes2);
+        digest.update(costIdentity);
+
+        StringBuilder sb = new StringBuilder();
+
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >>> 4) & 0xf, 16))
+              .append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return sb.toString();
+    }
+
+    // Groups the dimensions of multiplicity one into disjoint triples, 
+    // shortest sequences first, as long as the triple tables fit in the 
+    // memory budget.
+    private List<int[]> getTriples(MultipleSequenceAlignmentInstance instance) {
+        List<int[]> triples = new ArrayList<>();
+        long remainingEntries = 
+                options.getTripleHeuristicMemory() / Integer.BYTES;
+        int sequences = 0;
+        Integer[] dimensions = new Integer[instance.getSequenceCount()];
+
+        for (int i = 0; i < dimensions.length; ++i) {
+            if (instance.getMultiplicity(i) == 1) {
+                dimensions[sequences++] = i;
+            }
+        }
+
+        dimensions = Arrays.copyOf(dimensions, sequences);
+
+        Arrays.sort(dimensions, 
+                    Comparator.comparingInt(instance::getSequenceLength));
+
+        for (int i = 0; i + 2 < sequences; i += 3) {
+            int[] triple = { dimensions[i], 
+                             dimensions[i + 1], 
+                             dimensions[i + 2] };
+            Arrays.sort(triple);
+            long volume = TripleTable.getVolume(instance,
+                                                triple[0],
+                                                triple[1],
+                                                triple[2]);
+
+            if (volume > remainingEntries || volume > MAXIMUM_TABLE_ENTRIES) {
+                break;
+            }
+
+            remainingEntries -= volume;
+            triples.add(triple);
+        }
+
+        return triples;
+    }
+
+    // Basically, this method fills the 2D-grid of the two dimensions by the
+    // pairwise alignment recurrence, starting from the target corner and 
+    // proceeding row by row towards the source corner.
+    private int[] computePartialHeuristicFunction(
+            byte[] sequence1,
+            byte[] sequence2,
+            MultipleSequenceAlignmentInstance instance) {
+        int gapPenalty = instance.getGapPenalty();
+        int rowLength = sequence2.length + 1;
+        int[] table = new int[getTableSize(sequence1.length + 1, rowLength)];
+
+        // The last row: only gaps in the first sequence remain.
+        int lastRowOffset = sequence1.length * rowLength;
+
+        for (int y = sequence2.length - 1; y >= 0; --y) {
+            table[lastRowOffset + y] = 
+                    table[lastRowOffset + y + 1] + gapPenalty;
+        }
+
+        for (int x = sequence1.length - 1; x >= 0; --x) {
+            int offset = x * rowLength;
+            int nextOffset = offset + rowLength;
+            
+            // The last column: only gaps in the second sequence remain.
+            table[offset + sequence2.length] = 
+                    table[nextOffset + sequence2.length] + gapPenalty;
+
+            for (int y = sequence2.length - 1; y >= 0; --y) {
+                int cost = table[nextOffset + y + 1] + 
+                           instance.getResidueCost(sequence1[x], sequence2[y]);
+
+                cost = Math.min(cost, table[nextOffset + y] + gapPenalty);
+                cost = Math.min(cost, table[offset + y + 1] + gapPenalty);
+                table[offset + y] = cost;
+            }
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,129 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class computes the costs of all hops out of an expanded lattice node.
+ * Loading a node tabulates the cost of every pair of residues that the node 
+ * can consume, in O(k^2) time. After that, each hop cost is derived from the 
+ * cost of the previous hop by accounting for the single dimension that 
+ * {@link NeighborCursor} toggled, in O(k) time.
+ */
+final class HopCostEngine {
+
+    private final MultipleSequenceAlignmentInstance instance;
+
+    /**
+     * The number of dimensions.
+     */
+    private final int dimensions;
+
+    /**
+     * The entry {@code i * dimensions + j} is the product of the 
+     * multiplicities of the ith and jth dimensions.
+     */
+    private final int[] pairMultiplicities;
+
+    /**
+     * The entry {@code i * dimensions + j} is the cost of a residue in the 
+     * ith dimension and a gap in the jth dimension, or vice versa.
+     */
+    private final int[] pairGapCosts;
+
+    /**
+     * The residue codes consumed when advancing in each dimension.
+     */
+    private final int[] residues;
+
+    /**
+     * The entry {@code i * dimensions + j} is the cost of the pair consisting
+     * of the next residues in the ith and jth dimensions.
+     */
+    private final int[] pairCosts;
+
+    /**
+     * The cost of the current hop.
+     */
+    private int cost;
+
+    HopCostEngine(MultipleSequenceAlignmentInstance instance) {
+        this.instance = instance;
+        this.dimensions = instance.getSequenceCount();
+        this.pairMultiplicities = new int[dimensions * dimensions];
+        this.pairGapCosts = new int[dimensions * dimensions];
+        this.residues = new int[dimensions];
+        this.pairCosts = new int[dimensions * dimensions];
+
+        for (int i = 0; i < dimensions; ++i) {
+            for (int j = 0; j < dimensions; ++j) {
+                pairMultiplicities[i * dimensions + j] = 
+                        instance.getMultiplicity(i) * 
+                        instance.getMultiplicity(j);
+                pairGapCosts[i * dimensions + j] = 
+                        pairMultiplicities[i * dimensions + j] * 
+                        instance.getGapPenalty();
+            }
+        }
+    }
+
+    /**
+     * Tabulates the pair costs for the hops out of the node with given 
+     * coordinates.
+     * 
+     * @param coordinates the coordinates of the expanded node.
+     */
+    void load(int[] coordinates) {
+        for (int i = 0; i < dimensions; ++i) {
+            residues[i] = coordinates[i] < instance.getSequenceLength(i) ?
+                          instance.getResidueCode(i, coordinates[i]) :
+                          instance.getGapCode();
+        }
+
+        for (int i = 0; i < dimensions; ++i) {
+            for (int j = i + 1; j < dimensions; ++j) {
+                int pairCost = pairMultiplicities[i * dimensions + j] *
+                               instance.getResidueCost(residues[i], 
+                                                       residues[j]);
+                pairCosts[i * dimensions + j] = pairCost;
+                pairCosts[j * dimensions + i] = pairCost;
+            }
+        }
+
+        cost = 0;
+    }
+
+    /**
+     * Updates the hop cost after {@code flippedDimension} was toggled, 
+     * yielding {@code move}.
+     * 
+     * @param flippedDimension the toggled dimension.
+     * @param move             the move after the toggle.
+     * @return the cost of the hop {@code move}.
+     */
+    int update(int flippedDimension, int move) {
+        // The change of switching 'flippedDimension' on: each pair with an
+        // advancing dimension turns from (gap, residue) into (residue, 
+        // residue), and each pair with a non-advancing dimension turns from
+        // (gap, gap) into (residue, gap).
+        int offset = flippedDimension * dimensions;
+        int delta = 0;
+
+        for (int j = 0; j < dimensions; ++j) {
+            if (j == flippedDimension) {
+                continue;
+            }
+
+            if ((move & (1 << j)) != 0) {
+                delta += pairCosts[offset + j] - pairGapCosts[offset + j];
+            } else {
+                delta += pairGapCosts[offset + j];
+            }
+        }
+
+        if ((move & (1 << flippedDimension)) != 0) {
+            cost += delta;
+        } else {
+            cost -= delta;
+        }
+
+        return cost;
+    }
+}
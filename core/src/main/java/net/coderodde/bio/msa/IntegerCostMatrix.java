@@ -0,0 +1,20 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This interface extends {@link CostMatrix} with lookups by the residue codes
+ * of its alphabet, which avoid boxing. The alphabet also decides how the 
+ * sequences aligned under the matrix are encoded.
+ */
+public interface IntegerCostMatrix extends CostMatrix<Integer> {
+
+    public int getCostByCodes(int residueCode1, int residueCode2);
+
+    /**
+     * Returns the alphabet whose residue codes index this matrix.
+     * 
+     * @return the alphabet, by default the amino acids.
+     */
+    public default Alphabet getAlphabet() {
+        return AminoAcidAlphabet.getAminoAcidAlphabet();
+    }
+}
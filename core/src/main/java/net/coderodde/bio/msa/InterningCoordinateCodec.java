@@ -0,0 +1,273 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This codec is the fallback for lattices too large to be addressed by a
+ * {@code long}. It interns each coordinate vector it sees into a flat
+ * {@code int} pool and derives the key of the vector from its index in the
+ * pool.
+ * <p>
+ * A vector whose reference count drops back to zero is forgotten, and its
+ * pool entry is reused, so that a search that releases the nodes it drops,
+ * such as frontier search, keeps the codec as small as its frontier.
+ * <p>
+ * The vectors are spread over independently locked stripes by their hash, so
+ * that parallel search workers may share a codec without serializing on a
+ * single lock. The key of a vector is its index within its stripe times the
+ * number of stripes plus the index of the stripe.
+ */
+final class InterningCoordinateCodec extends LatticeCoordinateCodec {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EMPTY = -1;
+    private static final int FREE = -1;
+
+    /**
+     * The number of coordinates per lattice node.
+     */
+    private final int dimensions;
+
+    private final Stripe[] stripes;
+
+    /**
+     * The number of bytes taken by the arrays of all the stripes.
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    InterningCoordinateCodec(int dimensions, int stripes) {
+        this.dimensions = dimensions;
+        this.stripes = new Stripe[stripes];
+
+        for (int i = 0; i < stripes; ++i) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    long encode(int[] coordinates) {
+        int hash = hash(coordinates, 0);
+        int stripe = (int) (((hash * 0x9E3779B9) & 0xFFFFFFFFL)
+                            * stripes.length >>> 32);
+
+        return (long) stripes[stripe].encode(coordinates, hash)
+                * stripes.length + stripe;
+    }
+
+    @Override
+    void decode(long key, int[] coordinates) {
+        getStripe(key).decode(getIndex(key), coordinates);
+    }
+
+    @Override
+    void retain(long key) {
+        getStripe(key).retain(getIndex(key));
+    }
+
+    @Override
+    void release(long key) {
+        getStripe(key).release(getIndex(key));
+    }
+
+    @Override
+    long getBytes() {
+        return bytes.get();
+    }
+
+    private Stripe getStripe(long key) {
+        return stripes[(int) (key % stripes.length)];
+    }
+
+    private int getIndex(long key) {
+        return (int) (key / stripes.length);
+    }
+
+    private int hash(int[] array, int offset) {
+        int hash = 7;
+
+        for (int i = 0; i < dimensions; ++i) {
+            hash = 41 * hash + array[offset + i];
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * This class holds the vectors of a single stripe.
+     */
+    private final class Stripe {
+
+        /**
+         * The interned coordinate vectors laid out one after another.
+         */
+        private int[] pool;
+
+        /**
+         * The reference counts of the vectors, or {@link #FREE} for the pool
+         * entries awaiting reuse.
+         */
+        private int[] references;
+
+        /**
+         * The open-addressing index mapping coordinate vectors to their
+         * indices in the pool.
+         */
+        private int[] index;
+
+        /**
+         * The stack of the pool entries awaiting reuse.
+         */
+        private int[] free;
+        private int freeSize;
+
+        /**
+         * The number of pool entries ever used.
+         */
+        private int size;
+
+        Stripe() {
+            pool = new int[INITIAL_CAPACITY * dimensions];
+            references = new int[INITIAL_CAPACITY];
+            index = new int[2 * INITIAL_CAPACITY];
+            free = new int[INITIAL_CAPACITY];
+            Arrays.fill(index, EMPTY);
+            bytes.addAndGet(getBytes());
+        }
+
+        synchronized int encode(int[] coordinates, int hash) {
+            int mask = index.length - 1;
+            int slot = hash & mask;
+
+            while (index[slot] != EMPTY) {
+                if (equals(index[slot], coordinates)) {
+                    return index[slot];
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            int entry;
+
+            if (freeSize > 0) {
+                entry = free[--freeSize];
+            } else {
+                if (size == references.length) {
+                    grow();
+                }
+
+                entry = size++;
+            }
+
+            System.arraycopy(coordinates, 0, pool, entry * dimensions,
+                             dimensions);
+            references[entry] = 0;
+            index[slot] = entry;
+
+            if (size - freeSize > index.length / 2) {
+                rehash();
+            }
+
+            return entry;
+        }
+
+        synchronized void decode(int entry, int[] coordinates) {
+            System.arraycopy(pool, entry * dimensions, coordinates, 0,
+                             dimensions);
+        }
+
+        synchronized void retain(int entry) {
+            references[entry]++;
+        }
+
+        synchronized void release(int entry) {
+            if (--references[entry] > 0) {
+                return;
+            }
+
+            remove(entry);
+            references[entry] = FREE;
+            free[freeSize++] = entry;
+        }
+
+        /**
+         * Removes the entry from the index. The following entries of the
+         * probe sequence are shifted back so that no tombstones are needed.
+         */
+        private void remove(int entry) {
+            int mask = index.length - 1;
+            int hole = hash(pool, entry * dimensions) & mask;
+
+            while (index[hole] != entry) {
+                hole = (hole + 1) & mask;
+            }
+
+            int current = (hole + 1) & mask;
+
+            while (index[current] != EMPTY) {
+                int home = hash(pool, index[current] * dimensions) & mask;
+
+                // Move the entry to the hole unless its home lies cyclically
+                // in (hole, current]:
+                if (((current - home) & mask) >= ((current - hole) & mask)) {
+                    index[hole] = index[current];
+                    hole = current;
+                }
+
+                current = (current + 1) & mask;
+            }
+
+            index[hole] = EMPTY;
+        }
+
+        private boolean equals(int entry, int[] coordinates) {
+            int offset = entry * dimensions;
+
+            for (int i = 0; i < dimensions; ++i) {
+                if (pool[offset + i] != coordinates[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void grow() {
+            long previousBytes = getBytes();
+            int capacity = 2 * references.length;
+            pool = Arrays.copyOf(pool, capacity * dimensions);
+            references = Arrays.copyOf(references, capacity);
+            free = Arrays.copyOf(free, capacity);
+            bytes.addAndGet(getBytes() - previousBytes);
+        }
+
+        private void rehash() {
+            long previousBytes = getBytes();
+            int[] newIndex = new int[2 * index.length];
+            int mask = newIndex.length - 1;
+            Arrays.fill(newIndex, EMPTY);
+
+            for (int entry = 0; entry < size; ++entry) {
+                if (references[entry] == FREE) {
+                    continue;
+                }
+
+                int slot = hash(pool, entry * dimensions) & mask;
+
+                while (newIndex[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+
+                newIndex[slot] = entry;
+            }
+
+            index = newIndex;
+            bytes.addAndGet(getBytes() - previousBytes);
+        }
+
+        private long getBytes() {
+            return (long) Integer.BYTES * (pool.length + references.length
+                                           + index.length + free.length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This abstract class defines the API for mapping lattice node coordinates to
+ * primitive {@code long} keys and back. The keys are non-negative so that
+ * search state tables may use negative values as empty slot markers.
+ */
+abstract class LatticeCoordinateCodec {
+
+    /**
+     * Returns the most compact codec for the lattice spanned by the sequences
+     * of {@code instance}. Lattices whose volume does not fit in a
+     * {@code long} fall back to interning the coordinate vectors.
+     *
+     * @param instance the problem instance.
+     * @return a coordinate codec.
+     */
+    static LatticeCoordinateCodec create(
+            MultipleSequenceAlignmentInstance instance) {
+        return create(instance, 1);
+    }
+
+    /**
+     * Returns the most compact codec for the lattice spanned by the sequences
+     * of {@code instance}, to be shared by {@code threads} threads.
+     *
+     * @param instance the problem instance.
+     * @param threads  the number of threads using the codec.
+     * @return a coordinate codec.
+     */
+    static LatticeCoordinateCodec create(
+            MultipleSequenceAlignmentInstance instance,
+            int threads) {
+        int[] lengths = new int[instance.getSequenceCount()];
+
+        for (int i = 0; i < lengths.length; ++i) {
+            lengths[i] = instance.getSequenceLength(i);
+        }
+
+        if (MixedRadixCoordinateCodec.fits(lengths)) {
+            return new MixedRadixCoordinateCodec(lengths);
+        }
+
+        // A few stripes per thread keep the workers from contending:
+        return new InterningCoordinateCodec(
+                lengths.length,
+                threads == 1 ? 1 : Integer.highestOneBit(4 * threads));
+    }
+
+    /**
+     * Returns the key of the lattice node with given coordinates.
+     *
+     * @param coordinates the coordinates of a lattice node.
+     * @return the key of the node.
+     */
+    abstract long encode(int[] coordinates);
+
+    /**
+     * Writes the coordinates of the node with key {@code key} to
+     * {@code coordinates}.
+     *
+     * @param key         the key of a lattice node.
+     * @param coordinates the target coordinate array.
+     */
+    abstract void decode(long key, int[] coordinates);
+
+    /**
+     * Adds a reference to the key {@code key}. Keys that are never retained
+     * stay valid as long as the codec.
+     *
+     * @param key the key of a lattice node.
+     */
+    void retain(long key) {
+    }
+
+    /**
+     * Drops a reference to the key {@code key}. Once the last reference is
+     * dropped, the key may be reused for another node.
+     *
+     * @param key a retained key of a lattice node.
+     */
+    void release(long key) {
+    }
+
+    /**
+     * Returns the number of bytes taken by the state of this codec.
+     */
+    long getBytes() {
+        return 0L;
+    }
+}
@@ -0,0 +1,74 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+final class LatticeNode {
+
+    /**
+     * The problem instance this lattice node contributes to.
+     */
+    private final MultipleSequenceAlignmentInstance instance;
+
+    /**
+     * The coordinates of this node in the entire lattice.
+     */
+    private final int[] coordinates;
+
+    LatticeNode(MultipleSequenceAlignmentInstance instance, int[] coordinates) {
+        this.instance = instance;
+        this.coordinates = coordinates;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return Arrays.equals(coordinates, ((LatticeNode) o).coordinates);
+    }
+
+    // Generated by NetBeans 8.1:
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 41 * hash + Arrays.hashCode(this.coordinates);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        String separator = "";
+
+        for (int coordinate : coordinates) {
+            sb.append(separator).append(coordinate);
+            separator = ", ";
+        }
+
+        return sb.append("]").toString();
+    }
+
+    LatticeNode[] getChildren() {
+        NeighborCursor cursor = new NeighborCursor(instance);
+        cursor.loadChildren(coordinates);
+        return loadNeighbors(cursor);
+    }
+
+    LatticeNode[] getParents() {
+        NeighborCursor cursor = new NeighborCursor(instance);
+        cursor.loadParents(coordinates);
+        return loadNeighbors(cursor);
+    }
+
+    int[] getCoordinates() {
+        return coordinates;
+    }
+
+    private LatticeNode[] loadNeighbors(NeighborCursor cursor) {
+        LatticeNode[] neighbors = new LatticeNode[cursor.size()];
+
+        for (int i = 0; cursor.next(); ++i) {
+            neighbors[i] = new LatticeNode(instance, 
+                                           cursor.getCoordinates().clone());
+        }
+
+        return neighbors;
+    }
+}
@@ -0,0 +1,34 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a growable list of primitive {@code long} values.
+ */
+final class LongArrayList {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int size;
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, 2 * values.length);
+        }
+
+        values[size++] = value;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
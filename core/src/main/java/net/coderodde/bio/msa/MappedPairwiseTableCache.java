@@ -0,0 +1,228 @@
+package net.coderodde.bio.msa;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class implements a persistent cache of pairwise heuristic tables. Each
+ * table is stored in its own file as a header followed by the raw table 
+ * entries in native byte order, and is read back through a memory mapping 
+ * with a single bulk copy.
+ * <p>
+ * The total size of the cache files is bounded. When it exceeds the bound, 
+ * the least recently used files are deleted; a hit refreshes the 
+ * modification time of its file. Since the cache only speeds up the 
+ * computation, I/O errors on lookup and store are treated as misses.
+ */
+public final class MappedPairwiseTableCache implements PairwiseTableCache {
+
+    private static final String SUFFIX = ".table";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4D534154;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final long maximumBytes;
+
+    /**
+     * The total size of the cache files, as far as this cache knows.
+     */
+    private long bytes;
+
+    /**
+     * Creates a cache keeping its files in {@code directory}, which is 
+     * created if it does not exist. Temporary files left behind by an 
+     * interrupted store are deleted.
+     * 
+     * @param directory    the cache directory.
+     * @param maximumBytes the maximum total size of the cache files.
+     */
+    public MappedPairwiseTableCache(Path directory, long maximumBytes) {
+        if (maximumBytes < 0L) {
+            throw new IllegalArgumentException(
+                    "Negative maximum cache size: " + maximumBytes);
+        }
+
+        this.directory = directory;
+        this.maximumBytes = maximumBytes;
+
+        try {
+            Files.createDirectories(directory);
+
+            // A store in progress in another process whose temporary file is
+            // deleted merely fails, as if the cache were unavailable.
+            for (Path file : listFiles(TEMPORARY_SUFFIX)) {
+                deleteQuietly(file);
+            }
+
+            for (Path file : listFiles(SUFFIX)) {
+                bytes += Files.size(file);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public int[] get(String key) {
+        Path file = directory.resolve(key + SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(file, 
+                                                    StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = 
+                    channel.map(FileChannel.MapMode.READ_ONLY, 
+                                0L, 
+                                channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+
+            if (buffer.capacity() < HEADER_BYTES
+                    || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(Integer.BYTES) != 
+                       (buffer.capacity() - HEADER_BYTES) / Integer.BYTES) {
+                // A foreign or truncated file.
+                return null;
+            }
+
+            buffer.position(HEADER_BYTES);
+            IntBuffer entries = buffer.slice()
+                                      .order(ByteOrder.nativeOrder())
+                                      .asIntBuffer();
+            int[] table = new int[entries.remaining()];
+            entries.get(table);
+            Files.setLastModifiedTime(
+                    file, 
+                    FileTime.fromMillis(System.currentTimeMillis()));
+            return table;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, int[] table) {
+        long fileBytes = HEADER_BYTES + (long) table.length * Integer.BYTES;
+
+        if (fileBytes > maximumBytes) {
+            return;
+        }
+
+        Path file = directory.resolve(key + SUFFIX);
+        Path temporaryFile = null;
+        long replacedBytes;
+
+        try {
+            // Write to a temporary file first so that readers never see a 
+            // partial table:
+            temporaryFile = 
+                    Files.createTempFile(directory, key, TEMPORARY_SUFFIX);
+
+            try (FileChannel channel = 
+                    FileChannel.open(temporaryFile, 
+                                     StandardOpenOption.READ,
+                                     StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = 
+                        channel.map(FileChannel.MapMode.READ_WRITE, 
+                                    0L, 
+                                    fileBytes);
+                buffer.order(ByteOrder.nativeOrder());
+                buffer.putInt(MAGIC);
+                buffer.putInt(table.length);
+                ByteBuffer body = buffer.slice().order(ByteOrder.nativeOrder());
+                body.asIntBuffer().put(table);
+            }
+
+            // Another thread may have stored the same table meanwhile:
+            replacedBytes = Files.exists(file) ? Files.size(file) : 0L;
+            Files.move(temporaryFile, 
+                       file, 
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            deleteQuietly(temporaryFile);
+            return;
+        }
+
+        synchronized (this) {
+            bytes += fileBytes - replacedBytes;
+
+            if (bytes > maximumBytes) {
+                evict();
+            }
+        }
+    }
+
+    // Deletes the least recently used files until the cache fits its bound.
+    // The size is recounted from the directory, since other processes may 
+    // share it.
+    private void evict() {
+        try {
+            List<Path> files = listFiles(SUFFIX);
+            List<FileTime> times = new ArrayList<>(files.size());
+            bytes = 0L;
+
+            for (Path file : files) {
+                times.add(Files.getLastModifiedTime(file));
+                bytes += Files.size(file);
+            }
+
+            List<Integer> order = new ArrayList<>(files.size());
+
+            for (int i = 0; i < files.size(); ++i) {
+                order.add(i);
+            }
+
+            order.sort(Comparator.comparing(times::get));
+
+            for (int i : order) {
+                if (bytes <= maximumBytes) {
+                    return;
+                }
+
+                long size = Files.size(files.get(i));
+                Files.deleteIfExists(files.get(i));
+                bytes -= size;
+            }
+        } catch (IOException ex) {
+            // Try again on the next store.
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            // Nothing more to do.
+        }
+    }
+
+    private List<Path> listFiles(String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = 
+                Files.newDirectoryStream(directory, "*" + suffix)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+
+        return files;
+    }
+}
@@ -0,0 +1,127 @@
+package net.coderodde.bio.msa;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * This class implements an in-memory cache of pairwise heuristic tables with
+ * least recently used eviction. The cache is bounded by the total size of the
+ * tables it holds. Concurrent requests for a table being computed wait for 
+ * that computation instead of repeating it.
+ */
+public final class MemoryPairwiseTableCache implements PairwiseTableCache {
+
+    private final long maximumBytes;
+
+    /**
+     * The tables in access order, least recently used first.
+     */
+    private final LinkedHashMap<String, int[]> tables = 
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The tables being computed.
+     */
+    private final Map<String, CompletableFuture<int[]>> pendingTables = 
+            new HashMap<>();
+
+    private long bytes;
+
+    /**
+     * Creates a cache holding tables of at most {@code maximumBytes} bytes in
+     * total.
+     * 
+     * @param maximumBytes the maximum total size of the tables.
+     */
+    public MemoryPairwiseTableCache(long maximumBytes) {
+        if (maximumBytes < 0L) {
+            throw new IllegalArgumentException(
+                    "Negative maximum cache size: " + maximumBytes);
+        }
+
+        this.maximumBytes = maximumBytes;
+    }
+
+    @Override
+    public synchronized int[] get(String key) {
+        return tables.get(key);
+    }
+
+    @Override
+    public synchronized void put(String key, int[] table) {
+        long tableBytes = getBytes(table);
+
+        if (tableBytes > maximumBytes) {
+            return;
+        }
+
+        int[] previousTable = tables.put(key, table);
+
+        if (previousTable != null) {
+            bytes -= getBytes(previousTable);
+        }
+
+        bytes += tableBytes;
+        Iterator<int[]> iterator = tables.values().iterator();
+
+        while (bytes > maximumBytes) {
+            bytes -= getBytes(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public int[] computeIfAbsent(String key, Supplier<int[]> supplier) {
+        CompletableFuture<int[]> future;
+
+        synchronized (this) {
+            int[] table = tables.get(key);
+
+            if (table != null) {
+                return table;
+            }
+
+            future = pendingTables.get(key);
+
+            if (future == null) {
+                pendingTables.put(key, new CompletableFuture<>());
+            }
+        }
+
+        if (future != null) {
+            return future.join();
+        }
+
+        // This thread computes the table:
+        try {
+            int[] table = supplier.get();
+            put(key, table);
+            completePending(key).complete(table);
+            return table;
+        } catch (RuntimeException | Error ex) {
+            completePending(key).completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the total size of the cached tables in bytes.
+     * 
+     * @return the total size.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private synchronized CompletableFuture<int[]> completePending(String key) {
+        return pendingTables.remove(key);
+    }
+
+    private static long getBytes(int[] table) {
+        return (long) table.length * Integer.BYTES;
+    }
+}
@@ -0,0 +1,71 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This codec packs the lattice coordinates into a single {@code long} by
+ * treating them as digits of a mixed-radix number, in which the radix of the
+ * ith digit is the length of the ith sequence plus one.
+ */
+final class MixedRadixCoordinateCodec extends LatticeCoordinateCodec {
+
+    /**
+     * The place values of the coordinates.
+     */
+    private final long[] placeValues;
+
+    /**
+     * The radices of the coordinates.
+     */
+    private final int[] radices;
+
+    MixedRadixCoordinateCodec(int[] lengths) {
+        this.placeValues = new long[lengths.length];
+        this.radices = new int[lengths.length];
+        long placeValue = 1L;
+
+        for (int i = 0; i < lengths.length; ++i) {
+            placeValues[i] = placeValue;
+            radices[i] = lengths[i] + 1;
+            placeValue *= radices[i];
+        }
+    }
+
+    /**
+     * Checks whether the lattice with given side lengths has at most
+     * {@code Long.MAX_VALUE} nodes.
+     *
+     * @param lengths the sequence lengths.
+     * @return {@code true} if every node key fits in a {@code long}.
+     */
+    static boolean fits(int[] lengths) {
+        long volume = 1L;
+
+        try {
+            for (int length : lengths) {
+                volume = Math.multiplyExact(volume, (long) length + 1);
+            }
+        } catch (ArithmeticException ex) {
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    long encode(int[] coordinates) {
+        long key = 0L;
+
+        for (int i = 0; i < coordinates.length; ++i) {
+            key += placeValues[i] * coordinates[i];
+        }
+
+        return key;
+    }
+
+    @Override
+    void decode(long key, int[] coordinates) {
+        for (int i = 0; i < coordinates.length; ++i) {
+            coordinates[i] = (int)(key % radices[i]);
+            key /= radices[i];
+        }
+    }
+}
@@ -0,0 +1,1216 @@
+package net.coderodde.bio.msa;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * This class holds a multiple sequence alignment problem. Instances are 
+ * immutable: the costs are read from the cost matrix once at construction,
+ * and each alignment run keeps its mutable state in a {@link SearchContext}
+ * of its own. Hence a single instance may be aligned from any number of 
+ * threads at a time.
+ */
+public final class MultipleSequenceAlignmentInstance {
+
+    /**
+     * Marks a heuristic estimate not computed yet. Estimates are sums of 
+     * costs and never reach it.
+     */
+    private static final int UNKNOWN_ESTIMATE = Integer.MIN_VALUE;
+
+    /**
+     * Marks a search without upper bound pruning.
+     */
+    private static final int NO_UPPER_BOUND = Integer.MAX_VALUE;
+
+    /**
+     * The penalty for pairs in which there is one valid character and one gap.
+     */
+    private final int gapPenalty;
+
+    /**
+     * The character pairs cost matrix.
+     */
+    private final CostMatrix<Integer> costMatrix;
+
+    /**
+     * The alphabet indexing the cost matrix.
+     */
+    private final Alphabet alphabet;
+
+    /**
+     * The sequences to be aligned as arrays of residue codes, or 
+     * {@code null} if they are packed.
+     */
+    private final byte[][] encodedSequences;
+
+    /**
+     * The sequences to be aligned packed two bits per residue, or 
+     * {@code null} if they are not. The sequences over alphabets of at most
+     * {@link PackedSequence#MAXIMUM_CODES} letters are packed, so that a 
+     * nucleotide instance takes a quarter of a byte per residue. A run 
+     * unpacks them for as long as it needs them.
+     */
+    private final PackedSequence[] packedSequences;
+
+    /**
+     * The residue code denoting a gap. Equals the size of the alphabet of the
+     * cost matrix.
+     */
+    private final int gapCode;
+
+    /**
+     * The cost of each pair of residue codes, including the gap code, laid out
+     * row by row. Pairs of a residue and a gap cost {@code gapPenalty}, and
+     * pairs of two gaps cost nothing.
+     */
+    private final int[] residueCosts;
+
+    /**
+     * The number of input sequences each dimension stands for. A dimension
+     * standing for {@code m} identical sequences is a single row of the 
+     * alignment weighted by {@code m}, so the cost of a pair of dimensions 
+     * is multiplied by the product of their multiplicities. Only the 
+     * collapsed instances searched by {@link #align(AlignmentOptions)} have
+     * multiplicities other than one.
+     */
+    private final int[] multiplicities;
+
+    public MultipleSequenceAlignmentInstance(CostMatrix<Integer> costMatrix,
+                                             int gapPenalty,
+                                             String... sequenceArray) {
+        this(costMatrix, 
+             gapPenalty, 
+             encode(sequenceArray, getAlphabet(costMatrix)));
+    }
+
+    /**
+     * Constructs an instance aligning the sequences of the given FASTA 
+     * records. The records are already encoded and validated by the reader,
+     * so their residue codes, packed or not, are used as they are without 
+     * building a string per record. They must have been read in the alphabet
+     * of the cost matrix.
+     * 
+     * @param costMatrix the character pairs cost matrix.
+     * @param gapPenalty the penalty of a residue aligned with a gap.
+     * @param records    the records of the sequences to align.
+     */
+    public MultipleSequenceAlignmentInstance(CostMatrix<Integer> costMatrix,
+                                             int gapPenalty,
+                                             List<FastaRecord> records) {
+        this(costMatrix, 
+             gapPenalty, 
+             getEncodedSequences(records, getAlphabet(costMatrix)),
+             getPackedSequences(records, getAlphabet(costMatrix)),
+             null);
+    }
+
+    /**
+     * Constructs an instance of the given residue codes, packing them if the
+     * alphabet is small enough.
+     */
+    private MultipleSequenceAlignmentInstance(CostMatrix<Integer> costMatrix,
+                                              int gapPenalty,
+                                              byte[][] encodedSequences) {
+        this(costMatrix, 
+             gapPenalty, 
+             isPacked(getAlphabet(costMatrix)) ? 
+                     null : 
+                     encodedSequences,
+             isPacked(getAlphabet(costMatrix)) ? 
+                     pack(encodedSequences) : 
+                     null,
+             null);
+    }
+
+    /**
+     * Constructs an instance of either the residue codes or the packed 
+     * sequences, the other being {@code null}.
+     */
+    private MultipleSequenceAlignmentInstance(CostMatrix<Integer> costMatrix,
+                                              int gapPenalty,
+                                              byte[][] encodedSequences,
+                                              PackedSequence[] packedSequences,
+                                              int[] multiplicities) {
+        this.costMatrix = costMatrix;
+        this.gapPenalty = gapPenalty;
+        this.alphabet = getAlphabet(costMatrix);
+        this.encodedSequences = encodedSequences;
+        this.packedSequences = packedSequences;
+
+        if (multiplicities == null) {
+            multiplicities = new int[getSequenceCount()];
+            Arrays.fill(multiplicities, 1);
+        }
+
+        this.multiplicities = multiplicities;
+        this.gapCode = alphabet.size();
+        this.residueCosts = new int[(gapCode + 1) * (gapCode + 1)];
+
+        for (int code1 = 0; code1 < gapCode; ++code1) {
+            for (int code2 = 0; code2 < gapCode; ++code2) {
+                residueCosts[code1 * (gapCode + 1) + code2] = 
+                        costMatrix instanceof IntegerCostMatrix ?
+                        ((IntegerCostMatrix) costMatrix)
+                                .getCostByCodes(code1, code2) :
+                        costMatrix.getCost(alphabet.getCharacter(code1), 
+                                           alphabet.getCharacter(code2));
+            }
+
+            residueCosts[code1 * (gapCode + 1) + gapCode] = gapPenalty;
+            residueCosts[gapCode * (gapCode + 1) + code1] = gapPenalty;
+        }
+    }
+
+    public Alignment align() {
+        return align(AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment align(AlignmentOptions options) {
+        if (options.isSequenceCollapsing()) {
+            SequenceCollapse collapse = 
+                    SequenceCollapse.create(
+                            this, 
+                            options.getCollapsingSubstitutions());
+
+            if (collapse != null) {
+                AlignmentOptions collapsedOptions = 
+                        options.withSequenceCollapsing(false);
+                return collapse.expand(
+                        collapse.getCollapsedInstance()
+                                .align(collapsedOptions),
+                        collapsedOptions);
+            }
+        }
+
+        if (options.isUpperBoundPruning()) {
+            return run("A*", 
+                       options, 
+                       true, 
+                       (hf, statistics, budget) -> 
+                               searchPruned(hf, options, statistics, budget));
+        }
+
+        return run("A*", options, true, this::search);
+    }
+
+    /**
+     * Computes an alignment via Dijkstra's algorithm, which uses no 
+     * heuristic. The residue costs may be negative, in which case the 
+     * alignment need not be optimal; it carries no lower bound.
+     * 
+     * @return an alignment.
+     */
+    public Alignment alignBrute() {
+        return alignBrute(AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignBrute(AlignmentOptions options) {
+        return run("Dijkstra", options, false, this::search);
+    }
+
+    /**
+     * Computes an optimal alignment via Partial Expansion A*, which stores 
+     * only the children whose f-value equals the f-value of their parent and
+     * puts the parent back to the open list with the next larger child 
+     * f-value. This trades repeated expansions for storing far fewer nodes.
+     * 
+     * @return an optimal alignment.
+     */
+    public Alignment alignPartialExpansion() {
+        return alignPartialExpansion(AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignPartialExpansion(AlignmentOptions options) {
+        return run("PEA*", 
+                   options, 
+                   true,
+                   (hf, statistics, budget) -> 
+                           new PartialExpansionAStar(this, 
+                                                     hf, 
+                                                     statistics, 
+                                                     budget)
+                                   .search());
+    }
+
+    /**
+     * Computes an optimal alignment via divide-and-conquer frontier search,
+     * which stores only the frontier of the search instead of every node 
+     * reached. The memory use grows with the surface rather than the volume
+     * of the explored part of the lattice, at the price of solving each half
+     * of the problem again.
+     * 
+     * @return an optimal alignment.
+     */
+    public Alignment alignFrontier() {
+        return alignFrontier(AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignFrontier(AlignmentOptions options) {
+        return run("Frontier", 
+                   options, 
+                   true,
+                   (hf, statistics, budget) -> 
+                           new FrontierSearch(this, 
+                                              hf, 
+                                              options, 
+                                              statistics, 
+                                              budget)
+                                   .search());
+    }
+
+    /**
+     * Computes an alignment via weighted A*, which inflates the heuristic by 
+     * the factor {@code 1 + epsilon}. The cost of the returned alignment, 
+     * shifted to be non-negative as described in {@link AnytimeAStar}, is at
+     * most {@code 1 + epsilon} times the optimal shifted cost. The alignment
+     * also carries a proven lower bound on the optimal cost.
+     * 
+     * @param epsilon the non-negative inflation of the heuristic.
+     * @return a bounded suboptimal alignment.
+     */
+    public Alignment alignWeighted(double epsilon) {
+        return alignWeighted(epsilon, AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignWeighted(double epsilon, AlignmentOptions options) {
+        checkEpsilon(epsilon);
+        return run("Weighted A*", 
+                   options, 
+                   true,
+                   (hf, statistics, budget) -> 
+                           new AnytimeAStar(this, hf, statistics, budget)
+                                   .search(epsilon));
+    }
+
+    /**
+     * Computes an optimal alignment via anytime repairing A* (ARA*). The 
+     * search starts as weighted A* with {@code initialEpsilon} and halves the
+     * inflation after every round, reusing the work done so far. After each 
+     * round, {@code listener} receives the best alignment found together with 
+     * a proven lower bound on the optimal cost, so the caller may use or 
+     * abandon it at any time.
+     * 
+     * @param initialEpsilon the non-negative inflation of the first round.
+     * @param listener       the consumer of the improving alignments.
+     * @return an optimal alignment.
+     */
+    public Alignment alignAnytime(double initialEpsilon, 
+                                  Consumer<Alignment> listener) {
+        return alignAnytime(initialEpsilon, 
+                            listener, 
+                            AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignAnytime(double initialEpsilon,
+                                  Consumer<Alignment> listener,
+                                  AlignmentOptions options) {
+        checkEpsilon(initialEpsilon);
+        Objects.requireNonNull(listener, "Listener is null");
+        return run("ARA*", 
+                   options, 
+                   true,
+                   (hf, statistics, budget) -> 
+                           new AnytimeAStar(this, hf, statistics, budget)
+                                   .search(initialEpsilon, 0.0, listener));
+    }
+
+    /**
+     * Computes an optimal alignment via hash distributed A* on 
+     * {@code threads} worker threads. Each worker owns the lattice nodes whose
+     * keys hash to it and exchanges generated nodes with the other workers 
+     * through lock-free mailboxes.
+     * 
+     * @param threads the number of worker threads.
+     * @return an optimal alignment.
+     */
+    public Alignment alignParallel(int threads) {
+        return alignParallel(threads, AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignParallel(int threads, AlignmentOptions options) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads must be positive: " + threads);
+        }
+
+        return run("HDA*", 
+                   options, 
+                   true,
+                   (hf, statistics, budget) -> 
+                           new ParallelAStar(this, 
+                                             hf, 
+                                             threads, 
+                                             statistics, 
+                                             budget)
+                                   .search());
+    }
+
+    /**
+     * Computes an alignment via progressive alignment: the sequences are 
+     * joined along a guide tree built from their pairwise costs, merging the
+     * profiles of the subtrees by dynamic programming. The result is not 
+     * optimal in general, but unlike the lattice searches it scales to 
+     * hundreds of sequences. The alignment carries the sum of the optimal 
+     * pairwise costs as its lower bound. The budgets do not apply.
+     * 
+     * @return a progressive alignment.
+     */
+    public Alignment alignProgressive() {
+        return alignProgressive(AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignProgressive(AlignmentOptions options) {
+        return run("Progressive", 
+                   options, 
+                   false,
+                   (hf, statistics, budget) -> 
+                           new ProgressiveAligner(this, options, statistics)
+                                   .align());
+    }
+
+    /**
+     * Computes an alignment by anchoring: runs of residues occurring exactly
+     * once in every sequence are chained and aligned as gapless blocks, and 
+     * the boxes of the lattice between them are aligned optimally and in 
+     * parallel on {@code threads} threads. For closely related sequences the
+     * boxes are exponentially smaller than the whole lattice. The result is 
+     * optimal only if an optimal alignment aligns the anchors; it carries 
+     * the sum of the optimal pairwise costs as its lower bound. The budgets 
+     * apply to each box separately.
+     * 
+     * @param threads the number of box aligner threads.
+     * @return an anchored alignment.
+     */
+    public Alignment alignAnchored(int threads) {
+        return alignAnchored(threads, AlignmentOptions.getDefaultOptions());
+    }
+
+    public Alignment alignAnchored(int threads, AlignmentOptions options) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads must be positive: " + threads);
+        }
+
+        return run("Anchored", 
+                   options, 
+                   false,
+                   (hf, statistics, budget) -> 
+                           new AnchorAligner(this, 
+                                             options, 
+                                             threads, 
+                                             statistics)
+                                   .align());
+    }
+
+    /**
+     * This interface abstracts the search algorithms as run by 
+     * {@link #run(String, AlignmentOptions, boolean, AlignmentSearch)}.
+     */
+    private interface AlignmentSearch {
+
+        Alignment search(HeuristicFunction hf,
+                         SearchStatistics statistics,
+                         SearchBudget budget);
+    }
+
+    private static void checkEpsilon(double epsilon) {
+        if (!(epsilon >= 0.0)) {
+            throw new IllegalArgumentException(
+                    "Epsilon must be non-negative: " + epsilon);
+        }
+    }
+
+    /**
+     * Runs an alignment algorithm and attaches the statistics of the run to
+     * the resulting alignment. The heuristic tables are charged to the 
+     * memory budget before they are built. If a budget is exceeded, the 
+     * alignment is the fallback alignment carrying the best lower bound 
+     * proven: the greedy alignment if the heuristic tables were built, and 
+     * the progressive alignment otherwise.
+     */
+    private Alignment run(String algorithm,
+                          AlignmentOptions options,
+                          boolean useHeuristic,
+                          AlignmentSearch search) {
+        SearchStatistics statistics = new SearchStatistics();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        SearchBudget budget = new SearchBudget(options);
+        HeuristicFunction hf = null;
+        Alignment alignment;
+
+        try {
+            if (useHeuristic) {
+                budget = budget.reserve(getHeuristicBytes(options));
+                hf = computeHeuristicFunction(options, statistics, budget);
+            }
+
+            alignment = search.search(hf, statistics, budget);
+        } catch (BudgetExceededException ex) {
+            statistics.setBudgetExceeded();
+            alignment = getFallbackAlignment(hf, 
+                                             options, 
+                                             statistics, 
+                                             ex.getLowerBound());
+        }
+
+        statistics.setSearchNanos(System.nanoTime() - start - 
+                                  statistics.getHeuristicBuildNanos());
+
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.sequences = getSequenceCount();
+            event.expansions = statistics.getExpansions();
+            event.generatedNodes = statistics.getGeneratedNodes();
+            event.peakOpenSize = statistics.getPeakOpenSize();
+            event.cost = alignment.getCost();
+            event.commit();
+        }
+
+        return alignment.withStatistics(statistics);
+    }
+
+    /**
+     * Returns the fallback alignment of a run whose budget is exceeded. 
+     * Without the heuristic tables, which may be what did not fit, the 
+     * progressive alignment is the fallback, since it keeps only two rows of
+     * each pairwise table.
+     */
+    private Alignment getFallbackAlignment(HeuristicFunction hf,
+                                           AlignmentOptions options,
+                                           SearchStatistics statistics,
+                                           int lowerBound) {
+        if (hf != null) {
+            return new GreedyAligner(this, hf).align(lowerBound);
+        }
+
+        Alignment progressive = 
+                new ProgressiveAligner(this, options, statistics).align();
+        return progressive.withLowerBound(
+                Math.min(progressive.getCost(), 
+                         Math.max(progressive.getLowerBound(), lowerBound)));
+    }
+
+    /**
+     * Returns the size of the heuristic tables of this instance, to be 
+     * reserved from the memory budget before they are built.
+     */
+    long getHeuristicBytes(AlignmentOptions options) {
+        return new HeuristicFunctionComputer(options).getBytes(this);
+    }
+
+    /**
+     * Computes the heuristic function, polling the time budget and the 
+     * cancellation token of {@code budget} between the tables.
+     * 
+     * @throws BudgetExceededException if the budget runs out.
+     */
+    HeuristicFunction computeHeuristicFunction(AlignmentOptions options,
+                                               SearchStatistics statistics,
+                                               SearchBudget budget) {
+        HeuristicBuildEvent event = new HeuristicBuildEvent();
+        event.begin();
+        long start = System.nanoTime();
+        HeuristicFunction hf;
+
+        try {
+            hf = new HeuristicFunctionComputer(options)
+                    .computeHeuristicFunction(this, budget);
+        } finally {
+            statistics.addHeuristicBuildNanos(System.nanoTime() - start);
+        }
+
+        if (event.shouldCommit()) {
+            event.sequences = getSequenceCount();
+
+            for (int i = 0; i < event.sequences; ++i) {
+                event.totalLength += getSequenceLength(i);
+            }
+
+            event.commit();
+        }
+
+        return hf;
+    }
+
+    /**
+     * Runs A* pruned by an upper bound. The bound is the cost of the cheaper 
+     * of the greedy and the progressive alignment, which is also the fallback
+     * if the budget is exceeded.
+     */
+    private Alignment searchPruned(HeuristicFunction hf,
+                                   AlignmentOptions options,
+                                   SearchStatistics statistics,
+                                   SearchBudget budget) {
+        long start = System.nanoTime();
+        int lowerBound = hf.get(getSourceNode());
+        Alignment bound = getUpperBoundAlignment(hf, options, statistics);
+        statistics.addHeuristicBuildNanos(System.nanoTime() - start);
+
+        if (bound.getCost() == lowerBound) {
+            // The bound alignment is optimal.
+            return bound.withLowerBound(lowerBound);
+        }
+
+        try {
+            return search(hf, statistics, budget, bound.getCost());
+        } catch (BudgetExceededException ex) {
+            statistics.setBudgetExceeded();
+            return bound.withLowerBound(
+                    Math.min(bound.getCost(), 
+                             Math.max(ex.getLowerBound(), lowerBound)));
+        }
+    }
+
+    private Alignment getUpperBoundAlignment(HeuristicFunction hf,
+                                             AlignmentOptions options,
+                                             SearchStatistics statistics) {
+        int sequences = getSequenceCount();
+        int[][] pairwiseCosts = new int[sequences][sequences];
+        byte[][] encodedSequences = null;
+
+        for (int i = 0; i < sequences; ++i) {
+            for (int j = i + 1; j < sequences; ++j) {
+                if (hf.hasPartial(i, j)) {
+                    pairwiseCosts[i][j] = 
+                    pairwiseCosts[j][i] = hf.getPartial(i, j, 0, 0);
+                    continue;
+                }
+
+                // A pair within a triple has no table:
+                if (encodedSequences == null) {
+                    encodedSequences = getEncodedSequences();
+                }
+
+                pairwiseCosts[i][j] = 
+                pairwiseCosts[j][i] = 
+                        HeuristicFunctionComputer.computePairwiseCost(
+                                encodedSequences[i], 
+                                encodedSequences[j], 
+                                this);
+            }
+        }
+
+        Alignment greedy = new GreedyAligner(this, hf).align(
+                BudgetExceededException.NO_LOWER_BOUND);
+        Alignment progressive = 
+                new ProgressiveAligner(this, options, statistics)
+                        .align(pairwiseCosts);
+        return greedy.getCost() <= progressive.getCost() ? 
+               greedy : 
+               progressive;
+    }
+
+    /**
+     * Runs A* from the source node to the target node. If {@code hf} is 
+     * {@code null}, the search degenerates to Dijkstra's algorithm.
+     * 
+     * @param hf         the heuristic function or {@code null}.
+     * @param statistics the statistics to update.
+     * @param budget     the budget of the search.
+     * @return an optimal alignment.
+     * @throws BudgetExceededException if the budget is exceeded.
+     */
+    Alignment search(HeuristicFunction hf, 
+                     SearchStatistics statistics,
+                     SearchBudget budget) {
+        return search(hf, statistics, budget, NO_UPPER_BOUND);
+    }
+
+    /**
+     * Runs A* from the source node to the target node, storing no node whose
+     * f-value exceeds {@code upperBound}. Every node on an optimal path has
+     * an f-value of at most the optimal cost, so the search stays optimal as
+     * long as some alignment costs {@code upperBound}.
+     * 
+     * @param hf         the heuristic function or {@code null}.
+     * @param statistics the statistics to update.
+     * @param budget     the budget of the search.
+     * @param upperBound the cost of a known alignment, or 
+     *                   {@link #NO_UPPER_BOUND}. Requires a heuristic 
+     *                   function.
+     * @return an optimal alignment.
+     * @throws BudgetExceededException if the budget is exceeded.
+     */
+    private Alignment search(HeuristicFunction hf, 
+                             SearchStatistics statistics,
+                             SearchBudget budget,
+                             int upperBound) {
+        SearchContext context = SearchContext.acquire(this);
+
+        try {
+            return search(hf, statistics, budget, upperBound, context);
+        } finally {
+            context.release();
+        }
+    }
+
+    private Alignment search(HeuristicFunction hf, 
+                             SearchStatistics statistics,
+                             SearchBudget budget,
+                             int upperBound,
+                             SearchContext context) {
+        LatticeCoordinateCodec codec = context.getCodec();
+        SearchStateTable table = context.getTable();
+        BucketOpenList open = context.getOpen();
+        NeighborCursor cursor = context.getCursor();
+        HopCostEngine hopCostEngine = context.getHopCostEngine();
+        int[] coordinates = context.getCoordinates();
+
+        long sourceKey = codec.encode(getSourceNode().getCoordinates());
+        long targetKey = codec.encode(getTargetNode().getCoordinates());
+        long closedNodes = 0L;
+
+        table.setCost(table.insert(sourceKey), 0, 0);
+        open.push(sourceKey, 
+                  hf == null ? 0 : hf.get(getSourceNode()), 
+                  0);
+
+        while (true) {
+            long currentKey = open.pop();
+
+            if (currentKey == targetKey) {
+                statistics.addMemory(table, open);
+
+                // With negative hop costs, Dijkstra's algorithm is not 
+                // optimal and proves no bound:
+                return tracebackPath(
+                        codec, 
+                        table, 
+                        targetKey,
+                        hf == null ? 
+                                BudgetExceededException.NO_LOWER_BOUND :
+                                table.getCost(table.find(targetKey)));
+            }
+
+            int currentSlot = table.find(currentKey);
+            int currentCost = table.getCost(currentSlot);
+
+            if (table.isClosed(currentSlot) || open.getLastG() > currentCost) {
+                // A duplicate or an outdated entry.
+                statistics.countDuplicatePop();
+                continue;
+            }
+
+            if (budget.isExceeded(statistics.getExpansions(), 
+                                  SearchStatistics.getBytes(table, open)
+                                          + codec.getBytes())) {
+                // With negative hop costs, Dijkstra's algorithm proves no 
+                // bound.
+                throw new BudgetExceededException(
+                        hf == null ? 
+                        BudgetExceededException.NO_LOWER_BOUND :
+                        open.getLastF());
+            }
+
+            table.setClosed(currentSlot);
+            statistics.countExpansion();
+            statistics.updatePeaks(open.size() + 1, ++closedNodes);
+
+            codec.decode(currentKey, coordinates);
+            cursor.loadChildren(coordinates);
+            hopCostEngine.load(coordinates);
+            statistics.countGeneratedNodes(cursor.size());
+
+            while (cursor.next()) {
+                int weight = hopCostEngine.update(cursor.getFlippedDimension(),
+                                                  cursor.getMove());
+                int[] childCoordinates = cursor.getCoordinates();
+                long childKey = codec.encode(childCoordinates);
+                int tentativeCost = currentCost + weight;
+                int estimate = UNKNOWN_ESTIMATE;
+                int childSlot;
+
+                if (upperBound == NO_UPPER_BOUND) {
+                    childSlot = table.insert(childKey);
+                } else if ((childSlot = table.find(childKey)) < 0) {
+                    // Store a new node only if its f-value is within the 
+                    // bound. Improving the cost of a stored node only lowers
+                    // its f-value.
+                    estimate = hf.get(childCoordinates);
+
+                    if (tentativeCost + estimate > upperBound) {
+                        statistics.countPrunedNode();
+                        continue;
+                    }
+
+                    childSlot = table.insert(childKey);
+                }
+
+                if (table.isClosed(childSlot)) {
+                    continue;
+                }
+
+                if (table.getCost(childSlot) > tentativeCost) {
+                    table.setCost(childSlot, tentativeCost, cursor.getMove());
+
+                    if (hf != null && estimate == UNKNOWN_ESTIMATE) {
+                        estimate = hf.get(childCoordinates);
+                    }
+
+                    open.push(childKey, 
+                              hf == null ? 
+                                      tentativeCost :
+                                      tentativeCost + estimate,
+                              tentativeCost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the source node for the sequence alignment task, i.e., a lattice 
+     * node with all coordinates set to zero.
+     * 
+     * @return the source node.
+     */
+    LatticeNode getSourceNode() {
+        int[] sourceCoordinates = new int[getSequenceCount()];
+        return new LatticeNode(this, sourceCoordinates);
+    }
+
+    /**
+     * Create the target node for the sequence alignment task, i.e., a lattice
+     * node with all coordinates set to the respective sequence lengths.
+     * 
+     * @return the target node.
+     */
+    LatticeNode getTargetNode() {
+        int[] targetCoordinates = new int[getSequenceCount()];
+
+        for (int i = 0; i != targetCoordinates.length; ++i) {
+            targetCoordinates[i] = getSequenceLength(i);
+        }
+
+        return new LatticeNode(this, targetCoordinates);
+    }
+
+    int getWeight(LatticeNode tail, LatticeNode head) {
+        return getWeight(tail.getCoordinates(), head.getCoordinates());
+    }
+
+    int getWeight(int[] tailCoordinates, int[] headCoordinates) {
+        // Compute the hop cost as the sum of pairwise hops in any plane. The
+        // gap row and column of 'residueCosts' take care of the gaps:
+        int cost = 0;
+        int sequences = getSequenceCount();
+
+        for (int i = 0; i < sequences; ++i) {
+            int rowOffset = getHopCode(i, tailCoordinates, headCoordinates) * 
+                            (gapCode + 1);
+
+            for (int j = i + 1; j < sequences; ++j) {
+                cost += multiplicities[i] * multiplicities[j] *
+                        residueCosts[rowOffset + 
+                                     getHopCode(j, 
+                                                tailCoordinates, 
+                                                headCoordinates)];
+            }
+        }
+
+        return cost;
+    }
+
+    /**
+     * Returns the residue code consumed in the given dimension by the hop 
+     * from the tail to the head, or the gap code if the hop does not advance
+     * in it.
+     */
+    private int getHopCode(int dimension, 
+                           int[] tailCoordinates, 
+                           int[] headCoordinates) {
+        return tailCoordinates[dimension] + 1 == headCoordinates[dimension] ?
+               getResidueCode(dimension, tailCoordinates[dimension]) :
+               gapCode;
+    }
+
+    /**
+     * Returns the cost of aligning the residues with given codes. Either code
+     * may be the gap code.
+     * 
+     * @param code1 the first residue code.
+     * @param code2 the second residue code.
+     * @return the cost of the pair.
+     */
+    int getResidueCost(int code1, int code2) {
+        return residueCosts[code1 * (gapCode + 1) + code2];
+    }
+
+    /**
+     * Returns the residue codes of the sequences one byte per residue. Packed
+     * sequences are unpacked into new arrays on each call, so a computation 
+     * should call this once and keep the result while it runs.
+     * 
+     * @return the residue codes of each sequence.
+     */
+    byte[][] getEncodedSequences() {
+        if (encodedSequences != null) {
+            return encodedSequences;
+        }
+
+        byte[][] sequences = new byte[packedSequences.length][];
+
+        for (int i = 0; i < sequences.length; ++i) {
+            sequences[i] = packedSequences[i].unpack();
+        }
+
+        return sequences;
+    }
+
+    int getSequenceCount() {
+        return encodedSequences != null ? 
+               encodedSequences.length : 
+               packedSequences.length;
+    }
+
+    int getSequenceLength(int dimension) {
+        return encodedSequences != null ?
+               encodedSequences[dimension].length :
+               packedSequences[dimension].length();
+    }
+
+    /**
+     * Returns the code of the residue at {@code index} in the given 
+     * dimension.
+     */
+    int getResidueCode(int dimension, int index) {
+        return encodedSequences != null ?
+               encodedSequences[dimension][index] :
+               packedSequences[dimension].get(index);
+    }
+
+    /**
+     * Returns the characters of the sequence in the given dimension as ASCII
+     * bytes.
+     */
+    byte[] getCharacters(int dimension) {
+        byte[] characters = new byte[getSequenceLength(dimension)];
+
+        for (int i = 0; i < characters.length; ++i) {
+            characters[i] = 
+                    (byte) alphabet.getCharacter(getResidueCode(dimension, i));
+        }
+
+        return characters;
+    }
+
+    int getGapCode() {
+        return gapCode;
+    }
+
+    /**
+     * Creates the problem instance of aligning the parts of the sequences 
+     * between two lattice nodes.
+     * 
+     * @param from the coordinates of the first node.
+     * @param to   the coordinates of the second node.
+     * @return the subinstance.
+     */
+    MultipleSequenceAlignmentInstance getSubinstance(int[] from, int[] to) {
+        int sequences = getSequenceCount();
+        byte[][] encoded = encodedSequences == null ? 
+                           null : 
+                           new byte[sequences][];
+        PackedSequence[] packed = packedSequences == null ? 
+                                  null : 
+                                  new PackedSequence[sequences];
+
+        for (int i = 0; i < sequences; ++i) {
+            if (encoded != null) {
+                encoded[i] = Arrays.copyOfRange(encodedSequences[i], 
+                                                from[i], 
+                                                to[i]);
+            } else {
+                packed[i] = packedSequences[i].subsequence(from[i], to[i]);
+            }
+        }
+
+        return new MultipleSequenceAlignmentInstance(costMatrix,
+                                                     gapPenalty,
+                                                     encoded,
+                                                     packed,
+                                                     multiplicities);
+    }
+
+    /**
+     * Creates the problem instance of aligning the sequences in the given
+     * dimensions, each standing for the given number of sequences.
+     * 
+     * @param dimensions     the dimensions to keep.
+     * @param multiplicities the multiplicity of each kept dimension.
+     * @return the collapsed instance.
+     */
+    MultipleSequenceAlignmentInstance getCollapsedInstance(
+            int[] dimensions, 
+            int[] multiplicities) {
+        byte[][] encoded = encodedSequences == null ? 
+                           null : 
+                           new byte[dimensions.length][];
+        PackedSequence[] packed = packedSequences == null ? 
+                                  null : 
+                                  new PackedSequence[dimensions.length];
+
+        for (int i = 0; i < dimensions.length; ++i) {
+            if (encoded != null) {
+                encoded[i] = encodedSequences[dimensions[i]];
+            } else {
+                packed[i] = packedSequences[dimensions[i]];
+            }
+        }
+
+        return new MultipleSequenceAlignmentInstance(costMatrix,
+                                                     gapPenalty,
+                                                     encoded,
+                                                     packed,
+                                                     multiplicities.clone());
+    }
+
+    /**
+     * Returns the number of input sequences the given dimension stands for.
+     */
+    int getMultiplicity(int dimension) {
+        return multiplicities[dimension];
+    }
+
+    /**
+     * Returns the sequences as strings, built anew on each call. Only the 
+     * alignments built at the end of a run need them.
+     * 
+     * @return the sequences.
+     */
+    String[] getSequenceArray() {
+        String[] sequenceArray = new String[getSequenceCount()];
+
+        for (int i = 0; i < sequenceArray.length; ++i) {
+            sequenceArray[i] = new String(getCharacters(i), 
+                                          StandardCharsets.US_ASCII);
+        }
+
+        return sequenceArray;
+    }
+
+    int getGapPenalty() {
+        return gapPenalty;
+    }
+
+    /**
+     * Reconstructs the alignment by following the parent moves stored in
+     * {@code table} from the target node back to the source node. The cost of
+     * the alignment is summed over the moves followed: in anytime search, a 
+     * node improved after its children were generated leaves their costs 
+     * stale, so the cost stored for the target may exceed that of its path.
+     * 
+     * @param codec      the codec of the node keys in {@code table}.
+     * @param table      the search state table.
+     * @param targetKey  the key of the target node.
+     * @param lowerBound the lower bound proven by the search, or
+     *                   {@link BudgetExceededException#NO_LOWER_BOUND}.
+     * @return the alignment.
+     */
+    Alignment tracebackPath(LatticeCoordinateCodec codec,
+                            SearchStateTable table,
+                            long targetKey,
+                            int lowerBound) {
+        int[] coordinates = new int[getSequenceCount()];
+        int maximumLength = 0;
+
+        for (int i = 0; i < coordinates.length; ++i) {
+            maximumLength += getSequenceLength(i);
+        }
+
+        // Collect the moves of the path from the target back to the source:
+        int[] moves = new int[maximumLength];
+        int length = 0;
+        codec.decode(targetKey, coordinates);
+        int move = table.getParentMove(table.find(targetKey));
+
+        // Only the source node has the empty move:
+        while (move != 0) {
+            moves[length++] = move;
+
+            for (int i = 0; i < coordinates.length; ++i) {
+                if ((move & (1 << i)) != 0) {
+                    coordinates[i]--;
+                }
+            }
+
+            move = table.getParentMove(table.find(codec.encode(coordinates)));
+        }
+
+        // Put the moves in path order:
+        for (int i = 0, j = length - 1; i < j; ++i, --j) {
+            int tmp = moves[i];
+            moves[i] = moves[j];
+            moves[j] = tmp;
+        }
+
+        // The coordinates are back at the source:
+        int[] headCoordinates = new int[coordinates.length];
+        int cost = 0;
+
+        for (int column = 0; column < length; ++column) {
+            for (int i = 0; i < coordinates.length; ++i) {
+                if ((moves[column] & (1 << i)) != 0) {
+                    headCoordinates[i]++;
+                }
+            }
+
+            cost += getWeight(coordinates, headCoordinates);
+            System.arraycopy(headCoordinates, 0, 
+                             coordinates, 0, 
+                             coordinates.length);
+        }
+
+        return createAlignment(moves, 
+                               length, 
+                               cost, 
+                               Math.min(cost, lowerBound));
+    }
+
+    /**
+     * Creates the alignment of the path from the source node taking the 
+     * given moves.
+     * 
+     * @param moves      the moves in path order.
+     * @param length     the number of moves.
+     * @param cost       the cost of the path.
+     * @param lowerBound the lower bound on the optimal cost.
+     * @return the alignment.
+     */
+    Alignment createAlignment(int[] moves, 
+                              int length, 
+                              int cost, 
+                              int lowerBound) {
+        int sequences = getSequenceCount();
+        long[][] gapMasks = new long[sequences][Alignment.getWords(length)];
+
+        for (int column = 0; column < length; ++column) {
+            int move = moves[column];
+
+            for (int i = 0; i < sequences; ++i) {
+                if ((move & (1 << i)) == 0) {
+                    gapMasks[i][column >>> 6] |= 1L << column;
+                }
+            }
+        }
+
+        return new Alignment(getSequenceArray(), 
+                             gapMasks, 
+                             length, 
+                             cost, 
+                             lowerBound);
+    }
+
+    /**
+     * Returns the alphabet indexing {@code costMatrix}. Matrices looked up 
+     * by characters only are taken to be over the amino acids.
+     */
+    private static Alphabet getAlphabet(CostMatrix<Integer> costMatrix) {
+        Objects.requireNonNull(costMatrix, "Cost matrix is null");
+        return costMatrix instanceof IntegerCostMatrix ?
+               ((IntegerCostMatrix) costMatrix).getAlphabet() :
+               AminoAcidAlphabet.getAminoAcidAlphabet();
+    }
+
+    private static byte[][] encode(String[] sequenceArray, Alphabet alphabet) {
+        byte[][] encodedSequences = new byte[sequenceArray.length][];
+
+        for (int i = 0; i != sequenceArray.length; ++i) {
+            encodedSequences[i] = encode(sequenceArray[i], alphabet);
+        }
+
+        return encodedSequences;
+    }
+
+    private static boolean isPacked(Alphabet alphabet) {
+        return alphabet.size() <= PackedSequence.MAXIMUM_CODES;
+    }
+
+    private static PackedSequence[] pack(byte[][] encodedSequences) {
+        PackedSequence[] packedSequences = 
+                new PackedSequence[encodedSequences.length];
+
+        for (int i = 0; i < packedSequences.length; ++i) {
+            packedSequences[i] = PackedSequence.pack(encodedSequences[i]);
+        }
+
+        return packedSequences;
+    }
+
+    /**
+     * Returns the residue codes of the records, or {@code null} if the 
+     * alphabet is packed.
+     */
+    private static byte[][] getEncodedSequences(List<FastaRecord> records,
+                                                Alphabet alphabet) {
+        checkAlphabet(records, alphabet);
+
+        if (isPacked(alphabet)) {
+            return null;
+        }
+
+        byte[][] encodedSequences = new byte[records.size()][];
+
+        for (int i = 0; i < encodedSequences.length; ++i) {
+            encodedSequences[i] = records.get(i).getResidues();
+        }
+
+        return encodedSequences;
+    }
+
+    /**
+     * Returns the packed residue codes of the records, or {@code null} if 
+     * the alphabet is not packed.
+     */
+    private static PackedSequence[] getPackedSequences(
+            List<FastaRecord> records,
+            Alphabet alphabet) {
+        if (!isPacked(alphabet)) {
+            return null;
+        }
+
+        PackedSequence[] packedSequences = new PackedSequence[records.size()];
+
+        for (int i = 0; i < packedSequences.length; ++i) {
+            FastaRecord record = records.get(i);
+            packedSequences[i] = record.getPackedResidues() != null ?
+                                 record.getPackedResidues() :
+                                 PackedSequence.pack(record.getResidues());
+        }
+
+        return packedSequences;
+    }
+
+    private static void checkAlphabet(List<FastaRecord> records, 
+                                      Alphabet alphabet) {
+        for (FastaRecord record : records) {
+            if (record.getAlphabet() != alphabet) {
+                throw new IllegalArgumentException(
+                        "Record " + record.getName() + 
+                        " is not in the alphabet of the cost matrix.");
+            }
+        }
+    }
+
+    private static byte[] encode(String string, Alphabet alphabet) {
+        byte[] encodedSequence = new byte[string.length()];
+
+        for (int i = 0; i < encodedSequence.length; ++i) {
+            char c = string.charAt(i);
+            int code = alphabet.getCode(c);
+
+            if (code < 0) {
+                throw new IllegalArgumentException("Unknown residue: " + c);
+            }
+
+            encodedSequence[i] = (byte) code;
+        }
+
+        return encodedSequence;
+    }
+}
@@ -0,0 +1,158 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class enumerates the children or the parents of a lattice node without
+ * allocating. The cursor owns a single coordinate buffer, which it rewrites in
+ * place on every call to {@link #next()}; callers that need to keep a 
+ * neighbor must copy or encode the buffer before advancing.
+ * <p>
+ * The moves are visited in Gray code order, so that consecutive neighbors 
+ * differ in exactly one dimension. This lets {@link HopCostEngine} update the
+ * hop cost instead of recomputing it.
+ */
+final class NeighborCursor {
+
+    /**
+     * The sequence lengths, i.e., the upper bounds of the coordinates.
+     */
+    private final int[] lengths;
+
+    /**
+     * The coordinates of the current neighbor.
+     */
+    private final int[] coordinates;
+
+    /**
+     * The dimensions in which a step can be taken from the loaded node.
+     */
+    private final int[] dimensions;
+
+    /**
+     * The number of valid entries in {@code dimensions}.
+     */
+    private int dimensionCount;
+
+    /**
+     * {@code +1} when enumerating children and {@code -1} when enumerating 
+     * parents.
+     */
+    private int step;
+
+    /**
+     * The bit mask of the dimensions in which the current neighbor differs
+     * from the loaded node.
+     */
+    private int move;
+
+    /**
+     * The number of neighbors enumerated so far.
+     */
+    private int counter;
+
+    /**
+     * The dimension toggled by the last call to {@link #next()}.
+     */
+    private int flippedDimension;
+
+    NeighborCursor(MultipleSequenceAlignmentInstance instance) {
+        int sequences = instance.getSequenceCount();
+        this.lengths = new int[sequences];
+        this.coordinates = new int[sequences];
+        this.dimensions = new int[sequences];
+
+        for (int i = 0; i < lengths.length; ++i) {
+            lengths[i] = instance.getSequenceLength(i);
+        }
+    }
+
+    /**
+     * Prepares this cursor for enumerating the children of the node with 
+     * given coordinates.
+     * 
+     * @param nodeCoordinates the coordinates of the node to expand.
+     */
+    void loadChildren(int[] nodeCoordinates) {
+        System.arraycopy(nodeCoordinates, 0, coordinates, 0, lengths.length);
+        dimensionCount = 0;
+        step = 1;
+        move = 0;
+        counter = 0;
+
+        for (int i = 0; i < lengths.length; ++i) {
+            if (nodeCoordinates[i] < lengths[i]) {
+                // We can make a step forward in the direction of ith dimension:
+                dimensions[dimensionCount++] = i;
+            }
+        }
+    }
+
+    /**
+     * Prepares this cursor for enumerating the parents of the node with given
+     * coordinates.
+     * 
+     * @param nodeCoordinates the coordinates of the node.
+     */
+    void loadParents(int[] nodeCoordinates) {
+        System.arraycopy(nodeCoordinates, 0, coordinates, 0, lengths.length);
+        dimensionCount = 0;
+        step = -1;
+        move = 0;
+        counter = 0;
+
+        for (int i = 0; i < lengths.length; ++i) {
+            if (nodeCoordinates[i] > 0) {
+                // We can make a step backwards in the direction of ith 
+                // dimension:
+                dimensions[dimensionCount++] = i;
+            }
+        }
+    }
+
+    /**
+     * Advances to the next neighbor. The ith step of the enumeration toggles 
+     * the available dimension indexed by the number of trailing zeros of i, 
+     * which walks the moves in reflected binary Gray code order.
+     * 
+     * @return {@code true} if there is a next neighbor, {@code false} if all
+     *         neighbors have been enumerated.
+     */
+    boolean next() {
+        if (counter == size()) {
+            return false;
+        }
+
+        flippedDimension = 
+                dimensions[Integer.numberOfTrailingZeros(++counter)];
+        int bit = 1 << flippedDimension;
+
+        if ((move & bit) == 0) {
+            coordinates[flippedDimension] += step;
+        } else {
+            coordinates[flippedDimension] -= step;
+        }
+
+        move ^= bit;
+        return true;
+    }
+
+    /**
+     * Returns the number of neighbors of the loaded node.
+     * 
+     * @return the number of neighbors.
+     */
+    int size() {
+        return (1 << dimensionCount) - 1;
+    }
+
+    int getMove() {
+        return move;
+    }
+
+    int getFlippedDimension() {
+        return flippedDimension;
+    }
+
+    int[] getCoordinates() {
+        return coordinates;
+    }
+}
@@ -0,0 +1,75 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+/**
+ * This class maps the nucleotides of DNA or RNA to residue codes and back. 
+ * The codes of both alphabets follow the order A, C, G and T or U, so the 
+ * purines have even codes and the pyrimidines odd ones. Four codes fit in 
+ * two bits, which lets {@link FastaReader} store nucleotide records packed.
+ * The two instances are built when the class is initialized and never 
+ * modified afterwards, so they may be shared by any number of threads.
+ */
+public final class NucleotideAlphabet implements Alphabet {
+
+    private static final NucleotideAlphabet DNA = 
+            new NucleotideAlphabet("ACGT");
+
+    private static final NucleotideAlphabet RNA = 
+            new NucleotideAlphabet("ACGU");
+
+    /**
+     * Maps residue codes to nucleotide characters.
+     */
+    private final char[] characters;
+
+    /**
+     * Maps ASCII characters to residue codes, or to {@code -1} if the 
+     * character is not a nucleotide of this alphabet.
+     */
+    private final byte[] codes = new byte[128];
+
+    public static NucleotideAlphabet getDNAAlphabet() {
+        return DNA;
+    }
+
+    public static NucleotideAlphabet getRNAAlphabet() {
+        return RNA;
+    }
+
+    private NucleotideAlphabet(String nucleotides) {
+        characters = nucleotides.toCharArray();
+        Arrays.fill(codes, (byte) -1);
+
+        for (int code = 0; code < characters.length; ++code) {
+            codes[characters[code]] = (byte) code;
+        }
+    }
+
+    @Override
+    public int size() {
+        return characters.length;
+    }
+
+    @Override
+    public int getCode(char nucleotideChar) {
+        return nucleotideChar < codes.length ? codes[nucleotideChar] : -1;
+    }
+
+    @Override
+    public char getCharacter(int code) {
+        return characters[code];
+    }
+
+    /**
+     * Returns {@code true} if the two codes denote different purines or 
+     * different pyrimidines.
+     * 
+     * @param code1 the first residue code.
+     * @param code2 the second residue code.
+     * @return {@code true} if the substitution is a transition.
+     */
+    public boolean isTransition(int code1, int code2) {
+        return code1 != code2 && ((code1 ^ code2) & 1) == 0;
+    }
+}
@@ -0,0 +1,96 @@
+package net.coderodde.bio.msa;
+
+import java.util.Objects;
+
+/**
+ * This class implements a nucleotide cost matrix distinguishing matches, 
+ * transitions and transversions. The costs are held in a 4 by 4 table 
+ * indexed by the residue codes of a {@link NucleotideAlphabet}; the cost of 
+ * a gap is the gap penalty of the instance, as with any other matrix. The 
+ * default matrices charge -5 for a match and 4 for a mismatch, the costs 
+ * of the common +5/-4 nucleotide scoring. Instances are immutable.
+ */
+public final class NucleotideCostMatrix implements IntegerCostMatrix {
+
+    public static final int DEFAULT_MATCH_COST = -5;
+    public static final int DEFAULT_MISMATCH_COST = 4;
+
+    private static final NucleotideCostMatrix DNA_INSTANCE = 
+            new NucleotideCostMatrix(NucleotideAlphabet.getDNAAlphabet(),
+                                     DEFAULT_MATCH_COST,
+                                     DEFAULT_MISMATCH_COST,
+                                     DEFAULT_MISMATCH_COST);
+
+    private static final NucleotideCostMatrix RNA_INSTANCE = 
+            new NucleotideCostMatrix(NucleotideAlphabet.getRNAAlphabet(),
+                                     DEFAULT_MATCH_COST,
+                                     DEFAULT_MISMATCH_COST,
+                                     DEFAULT_MISMATCH_COST);
+
+    private final NucleotideAlphabet alphabet;
+
+    /**
+     * The costs laid out row by row and indexed by residue codes.
+     */
+    private final int[] costs;
+
+    public static NucleotideCostMatrix getDNACostMatrix() {
+        return DNA_INSTANCE;
+    }
+
+    public static NucleotideCostMatrix getRNACostMatrix() {
+        return RNA_INSTANCE;
+    }
+
+    /**
+     * Constructs a nucleotide cost matrix.
+     * 
+     * @param alphabet         the DNA or RNA alphabet.
+     * @param matchCost        the cost of two equal nucleotides.
+     * @param transitionCost   the cost of a purine with another purine, or a
+     *                         pyrimidine with another pyrimidine.
+     * @param transversionCost the cost of a purine with a pyrimidine.
+     */
+    public NucleotideCostMatrix(NucleotideAlphabet alphabet,
+                                int matchCost,
+                                int transitionCost,
+                                int transversionCost) {
+        this.alphabet = Objects.requireNonNull(alphabet, "Alphabet is null");
+        this.costs = new int[alphabet.size() * alphabet.size()];
+
+        for (int code1 = 0; code1 < alphabet.size(); ++code1) {
+            for (int code2 = 0; code2 < alphabet.size(); ++code2) {
+                costs[code1 * alphabet.size() + code2] = 
+                        code1 == code2 ? 
+                        matchCost : 
+                        alphabet.isTransition(code1, code2) ?
+                        transitionCost :
+                        transversionCost;
+            }
+        }
+    }
+
+    @Override
+    public Integer getCost(Character nucleotideChar1, 
+                           Character nucleotideChar2) {
+        int code1 = alphabet.getCode(nucleotideChar1);
+        int code2 = alphabet.getCode(nucleotideChar2);
+
+        if (code1 < 0 || code2 < 0) {
+            throw new IllegalArgumentException("Bad arguments: (" +
+                    nucleotideChar1 + ", " + nucleotideChar2 + ")");
+        }
+
+        return getCostByCodes(code1, code2);
+    }
+
+    @Override
+    public int getCostByCodes(int residueCode1, int residueCode2) {
+        return costs[residueCode1 * alphabet.size() + residueCode2];
+    }
+
+    @Override
+    public NucleotideAlphabet getAlphabet() {
+        return alphabet;
+    }
+}
@@ -2,25 +2,30 @@ package net.coderodde.bio.msa;
 
 import java.util.HashMap;
 import java.util.Map;
-import net.coderodde.bio.msa.AminoAcidAlphabet;
-import net.coderodde.bio.msa.CostMatrix;
 
-public final class PAM250CostMatrix implements CostMatrix<Integer> {
+/**
+ * This class implements the PAM250 cost matrix. The only instance is built 
+ * when the class is initialized and never modified afterwards, so it may be 
+ * shared by any number of threads.
+ */
+public final class PAM250CostMatrix implements IntegerCostMatrix {
 
-    private static PAM250CostMatrix instance;
+    private static final PAM250CostMatrix INSTANCE = new PAM250CostMatrix();
 
-    private final Map<Character, Map<Character, Integer>> m = new HashMap<>();
+    private final AminoAcidAlphabet alphabet = 
+            AminoAcidAlphabet.getAminoAcidAlphabet();
 
-    public static PAM250CostMatrix getPAM250CostMatrix() {
-        if (instance == null) {
-            instance = new PAM250CostMatrix();
-        }
+    /**
+     * The costs laid out row by row and indexed by residue codes.
+     */
+    private final int[] costs = new int[alphabet.size() * alphabet.size()];
 
-        return instance;
+    public static PAM250CostMatrix getPAM250CostMatrix() {
+        return INSTANCE;
     } 
 
     private PAM250CostMatrix() {
-        AminoAcidAlphabet alphabet = AminoAcidAlphabet.getAminoAcidAlphabet();
+        Map<Character, Map<Character, Integer>> m = new HashMap<>();
 
         alphabet.getCharacterSet().stream().forEach((character) -> {
             m.put(character, new HashMap<>());
@@ -426,16 +431,30 @@ public final class PAM250CostMatrix implements CostMatrix<Integer> {
         m.get('V').put('Y', 2);
         m.get('Y').put('V', 2);
         m.get('V').put('V', -4);
+
+        m.forEach((aminoAcidChar1, row) -> {
+            row.forEach((aminoAcidChar2, cost) -> {
+                costs[alphabet.getCode(aminoAcidChar1) * alphabet.size() + 
+                      alphabet.getCode(aminoAcidChar2)] = cost;
+            });
+        });
     }
 
     @Override
     public Integer getCost(Character aminoAcidChar1, Character aminoAcidChar2) {
-        try {
-            return m.get(aminoAcidChar1).get(aminoAcidChar2);
-        } catch (NullPointerException ex) {
+        int code1 = alphabet.getCode(aminoAcidChar1);
+        int code2 = alphabet.getCode(aminoAcidChar2);
+
+        if (code1 < 0 || code2 < 0) {
             throw new IllegalArgumentException("Bad arguments: (" +
-                    aminoAcidChar1 + ", " + aminoAcidChar2 + ")",
-                    ex);
+                    aminoAcidChar1 + ", " + aminoAcidChar2 + ")");
         }
+
+        return getCostByCodes(code1, code2);
+    }
+
+    @Override
+    public int getCostByCodes(int residueCode1, int residueCode2) {
+        return costs[residueCode1 * alphabet.size() + residueCode2];
     }
 }
@@ -0,0 +1,106 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+/**
+ * This class holds a sequence of residue codes below 
+ * {@link #MAXIMUM_CODES} packed two bits per residue, 32 residues per word 
+ * with the first residue in the lowest bits. It stores nucleotide sequences
+ * in a quarter of the space of one byte per residue.
+ */
+final class PackedSequence {
+
+    /**
+     * The number of codes representable in two bits.
+     */
+    static final int MAXIMUM_CODES = 4;
+
+    private static final int RESIDUES_PER_WORD = Long.SIZE / 2;
+
+    private final long[] words;
+    private final int length;
+
+    /**
+     * Constructs a packed sequence of the first {@code length} residues in 
+     * {@code words}, as built by {@link #append(long[], int, int)}.
+     */
+    PackedSequence(long[] words, int length) {
+        this.words = Arrays.copyOf(words, getWords(length));
+        this.length = length;
+    }
+
+    /**
+     * Stores {@code code} as the residue at index {@code length}.
+     * 
+     * @param words  the words of the first {@code length} residues.
+     * @param length the number of residues stored so far.
+     * @param code   the residue code to append.
+     * @return {@code words}, or a larger copy of it if it was full.
+     */
+    static long[] append(long[] words, int length, int code) {
+        if (length == words.length * RESIDUES_PER_WORD) {
+            words = Arrays.copyOf(words, Math.max(1, 2 * words.length));
+        }
+
+        words[length / RESIDUES_PER_WORD] |= 
+                (long) code << (2 * (length % RESIDUES_PER_WORD));
+        return words;
+    }
+
+    /**
+     * Packs residue codes below {@link #MAXIMUM_CODES}.
+     * 
+     * @param codes the residue codes one byte per residue.
+     * @return the packed sequence.
+     */
+    static PackedSequence pack(byte[] codes) {
+        long[] words = new long[getWords(codes.length)];
+
+        for (int i = 0; i < codes.length; ++i) {
+            append(words, i, codes[i]);
+        }
+
+        return new PackedSequence(words, codes.length);
+    }
+
+    int length() {
+        return length;
+    }
+
+    int get(int index) {
+        return (int)(words[index / RESIDUES_PER_WORD] >>> 
+                     (2 * (index % RESIDUES_PER_WORD))) & 3;
+    }
+
+    /**
+     * Returns the residues from index {@code from} inclusive to {@code to}
+     * exclusive.
+     */
+    PackedSequence subsequence(int from, int to) {
+        long[] words = new long[getWords(to - from)];
+
+        for (int i = from; i < to; ++i) {
+            append(words, i - from, get(i));
+        }
+
+        return new PackedSequence(words, to - from);
+    }
+
+    /**
+     * Returns the residue codes one byte per residue, as the searches read
+     * them.
+     */
+    byte[] unpack() {
+        byte[] residues = new byte[length];
+
+        for (int i = 0; i < length; ++i) {
+            residues[i] = (byte) get(i);
+        }
+
+        return residues;
+    }
+
+    private static int getWords(int length) {
+        return (length + RESIDUES_PER_WORD - 1) / RESIDUES_PER_WORD;
+    }
+}
@@ -0,0 +1,54 @@
+package net.coderodde.bio.msa;
+
+import java.util.function.Supplier;
+
+/**
+ * This interface defines the API for caches of pairwise heuristic tables. A
+ * table is identified by a key derived from the content of the two sequences,
+ * the cost matrix and the gap penalty, so a table may be reused by any
+ * instance aligning the same pair of sequences under the same costs.
+ * <p>
+ * Implementations must be thread-safe, since the tables of an instance are 
+ * computed concurrently.
+ */
+public interface PairwiseTableCache {
+
+    /**
+     * Returns the table stored under {@code key}, or {@code null} if there is
+     * no such table.
+     * 
+     * @param key the key of the table.
+     * @return the table or {@code null}.
+     */
+    int[] get(String key);
+
+    /**
+     * Stores {@code table} under {@code key}. The caller must not modify the 
+     * table afterwards.
+     * 
+     * @param key   the key of the table.
+     * @param table the table.
+     */
+    void put(String key, int[] table);
+
+    /**
+     * Returns the table stored under {@code key}, computing and storing it 
+     * via {@code supplier} if there is no such table. Implementations may 
+     * make concurrent callers with the same key wait for a single 
+     * computation.
+     * 
+     * @param key      the key of the table.
+     * @param supplier the supplier computing the table.
+     * @return the table.
+     */
+    default int[] computeIfAbsent(String key, Supplier<int[]> supplier) {
+        int[] table = get(key);
+
+        if (table == null) {
+            table = supplier.get();
+            put(key, table);
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,407 @@
+package net.coderodde.bio.msa;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class implements hash distributed A* (HDA*, Kishimoto, Fukunaga and
+ * Botea). Every lattice node is owned by the worker selected by the hash of
+ * its key, and each worker keeps its own open list and state table. A worker
+ * expanding a node sends each child not owned by itself to the owner through
+ * a lock-free mailbox, in batches. Since the workers do not expand nodes in
+ * global f-order, a node may be reached by a cheaper path after it was
+ * expanded, in which case its owner reopens it.
+ * <p>
+ * The owner of the target node maintains the incumbent, the cost of the best
+ * alignment found so far. A worker is idle when it has no open node with an
+ * f-value below the incumbent. The search is over once all workers are idle
+ * and no batch is in flight; since the heuristic is admissible, the
+ * incumbent is optimal at that point.
+ */
+final class ParallelAStar {
+
+    /**
+     * The number of children buffered per destination before a batch is
+     * sent.
+     */
+    private static final int BATCH_CAPACITY = 256;
+
+    /**
+     * The number of expansions between two mailbox checks.
+     */
+    private static final int EXPANSIONS_PER_ROUND = 64;
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final HeuristicFunction heuristicFunction;
+    private final SearchStatistics statistics;
+    private final SearchBudget budget;
+    private final LatticeCoordinateCodec codec;
+    private final Worker[] workers;
+    private final long targetKey;
+
+    /**
+     * The cost of the best path to the target found so far.
+     */
+    private final AtomicInteger incumbent =
+            new AtomicInteger(SearchStateTable.UNREACHED);
+
+    /**
+     * The number of batches sent but not yet fully processed.
+     */
+    private final AtomicLong batchesInFlight = new AtomicLong();
+
+    /**
+     * The number of idle workers.
+     */
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+
+    /**
+     * Incremented whenever a worker leaves the idle state. A termination check
+     * is valid only if this did not change while it ran.
+     */
+    private final AtomicLong activations = new AtomicLong();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean terminated;
+    private volatile boolean budgetExceeded;
+
+    ParallelAStar(MultipleSequenceAlignmentInstance instance,
+                  HeuristicFunction heuristicFunction,
+                  int threads,
+                  SearchStatistics statistics,
+                  SearchBudget budget) {
+        this.instance = instance;
+        this.heuristicFunction = heuristicFunction;
+        this.statistics = statistics;
+        this.budget = budget;
+        this.codec = LatticeCoordinateCodec.create(instance, threads);
+        this.workers = new Worker[threads];
+        this.targetKey =
+                codec.encode(instance.getTargetNode().getCoordinates());
+
+        for (int i = 0; i < threads; ++i) {
+            workers[i] = new Worker(i);
+        }
+    }
+
+    Alignment search() {
+        long sourceKey =
+                codec.encode(instance.getSourceNode().getCoordinates());
+        workers[getOwner(sourceKey)].relax(
+                sourceKey,
+                0,
+                heuristicFunction.get(instance.getSourceNode()),
+                0);
+
+        Thread[] threads = new Thread[workers.length];
+
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(workers[i], "HDA* worker " + i);
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                terminated = true;
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while aligning",
+                                                ex);
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("A search worker failed",
+                                            failure.get());
+        }
+
+        for (Worker worker : workers) {
+            worker.statistics.addMemory(worker.table, worker.open);
+            statistics.add(worker.statistics);
+        }
+
+        if (budgetExceeded) {
+            // The workers do not expand in global f-order, so no bound is
+            // proven.
+            throw new BudgetExceededException(
+                    BudgetExceededException.NO_LOWER_BOUND);
+        }
+
+        return tracebackPath();
+    }
+
+    /**
+     * Gathers the optimal path from the tables of the node owners into a
+     * single table, and reconstructs the alignment from it.
+     */
+    private Alignment tracebackPath() {
+        SearchStateTable pathTable = new SearchStateTable();
+        int[] coordinates = new int[instance.getSequenceCount()];
+        long key = targetKey;
+        codec.decode(key, coordinates);
+
+        while (true) {
+            SearchStateTable ownerTable = workers[getOwner(key)].table;
+            int slot = ownerTable.find(key);
+            int move = ownerTable.getParentMove(slot);
+
+            pathTable.setCost(pathTable.insert(key),
+                              ownerTable.getCost(slot),
+                              move);
+
+            if (move == 0) {
+                return instance.tracebackPath(codec, 
+                                              pathTable, 
+                                              targetKey,
+                                              incumbent.get());
+            }
+
+            for (int i = 0; i < coordinates.length; ++i) {
+                if ((move & (1 << i)) != 0) {
+                    coordinates[i]--;
+                }
+            }
+
+            key = codec.encode(coordinates);
+        }
+    }
+
+    private int getOwner(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int)((key >>> 33) % workers.length);
+    }
+
+    /**
+     * This class holds the children on their way to another worker.
+     */
+    private static final class Batch {
+
+        final long[] keys = new long[BATCH_CAPACITY];
+        final int[] costs = new int[BATCH_CAPACITY];
+        final int[] fValues = new int[BATCH_CAPACITY];
+        final int[] moves = new int[BATCH_CAPACITY];
+        int size;
+    }
+
+    private final class Worker implements Runnable {
+
+        private final int id;
+        private final SearchStateTable table = new SearchStateTable();
+        private final BucketOpenList open = new BucketOpenList();
+        private final Queue<Batch> mailbox = new ConcurrentLinkedQueue<>();
+        private final SearchStatistics statistics = new SearchStatistics();
+        private final SearchBudget budget = 
+                ParallelAStar.this.budget.split(workers.length);
+        private final Batch[] outgoing = new Batch[workers.length];
+        private final NeighborCursor cursor = new NeighborCursor(instance);
+        private final HopCostEngine hopCostEngine =
+                new HopCostEngine(instance);
+        private final int[] coordinates =
+                new int[instance.getSequenceCount()];
+        private boolean idle;
+        private long closedNodes;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!terminated) {
+                    receive();
+
+                    if (!expand()) {
+                        waitForWork();
+                    }
+                }
+            } catch (Throwable ex) {
+                failure.compareAndSet(null, ex);
+                terminated = true;
+            }
+        }
+
+        /**
+         * Records the path to {@code key} of cost {@code cost} if it is the
+         * best one known so far.
+         */
+        void relax(long key, int cost, int f, int move) {
+            int slot = table.insert(key);
+
+            if (table.getCost(slot) <= cost) {
+                return;
+            }
+
+            table.setCost(slot, cost, move);
+
+            if (key == targetKey) {
+                incumbent.set(cost);
+            } else if (f < incumbent.get()) {
+                if (table.isClosed(slot)) {
+                    table.setOpen(slot);
+                    closedNodes--;
+                    statistics.countReopening();
+                }
+
+                open.push(key, f, cost);
+            }
+        }
+
+        /**
+         * Expands up to {@link #EXPANSIONS_PER_ROUND} nodes.
+         *
+         * @return {@code false} if this worker ran out of open nodes with
+         *         f-values below the incumbent.
+         */
+        private boolean expand() {
+            for (int round = 0; round < EXPANSIONS_PER_ROUND; ++round) {
+                if (open.isEmpty() || open.getMinimumF() >= incumbent.get()) {
+                    send();
+                    return round > 0;
+                }
+
+                long currentKey = open.pop();
+                int currentSlot = table.find(currentKey);
+                int currentCost = table.getCost(currentSlot);
+
+                if (table.isClosed(currentSlot)
+                        || open.getLastG() > currentCost) {
+                    // A duplicate or an outdated entry.
+                    statistics.countDuplicatePop();
+                    continue;
+                }
+
+                if (budget.isExceeded(
+                        statistics.getExpansions(),
+                        SearchStatistics.getBytes(table, open)
+                                + codec.getBytes() / workers.length)) {
+                    budgetExceeded = true;
+                    terminated = true;
+                    return true;
+                }
+
+                table.setClosed(currentSlot);
+                statistics.countExpansion();
+                statistics.updatePeaks(open.size() + 1, ++closedNodes);
+                codec.decode(currentKey, coordinates);
+                cursor.loadChildren(coordinates);
+                hopCostEngine.load(coordinates);
+                statistics.countGeneratedNodes(cursor.size());
+
+                while (cursor.next()) {
+                    int weight = hopCostEngine.update(
+                            cursor.getFlippedDimension(),
+                            cursor.getMove());
+                    int[] childCoordinates = cursor.getCoordinates();
+                    int tentativeCost = currentCost + weight;
+                    int f = tentativeCost +
+                            heuristicFunction.get(childCoordinates);
+
+                    if (f >= incumbent.get()) {
+                        continue;
+                    }
+
+                    long childKey = codec.encode(childCoordinates);
+                    int owner = getOwner(childKey);
+
+                    if (owner == id) {
+                        relax(childKey, tentativeCost, f, cursor.getMove());
+                    } else {
+                        post(owner,
+                             childKey,
+                             tentativeCost,
+                             f,
+                             cursor.getMove());
+                    }
+                }
+            }
+
+            send();
+            return true;
+        }
+
+        private void post(int owner, long key, int cost, int f, int move) {
+            Batch batch = outgoing[owner];
+
+            if (batch == null) {
+                batch = outgoing[owner] = new Batch();
+            }
+
+            batch.keys[batch.size] = key;
+            batch.costs[batch.size] = cost;
+            batch.fValues[batch.size] = f;
+            batch.moves[batch.size] = move;
+
+            if (++batch.size == BATCH_CAPACITY) {
+                send(owner);
+            }
+        }
+
+        private void send() {
+            for (int owner = 0; owner < outgoing.length; ++owner) {
+                if (outgoing[owner] != null) {
+                    send(owner);
+                }
+            }
+        }
+
+        private void send(int owner) {
+            // Count the batch before it becomes visible to the receiver:
+            batchesInFlight.incrementAndGet();
+            workers[owner].mailbox.add(outgoing[owner]);
+            outgoing[owner] = null;
+        }
+
+        private void receive() {
+            Batch batch;
+
+            while ((batch = mailbox.poll()) != null) {
+                for (int i = 0; i < batch.size; ++i) {
+                    relax(batch.keys[i],
+                          batch.costs[i],
+                          batch.fValues[i],
+                          batch.moves[i]);
+                }
+
+                // Only now may the batch stop counting as in flight, since
+                // the work it carried is in the open list.
+                batchesInFlight.decrementAndGet();
+            }
+        }
+
+        private void waitForWork() {
+            if (!idle) {
+                idle = true;
+                idleWorkers.incrementAndGet();
+            }
+
+            long parkNanos = 1_000L;
+
+            while (!terminated) {
+                if (!mailbox.isEmpty()) {
+                    idle = false;
+                    idleWorkers.decrementAndGet();
+                    activations.incrementAndGet();
+                    return;
+                }
+
+                long activationsBefore = activations.get();
+
+                if (idleWorkers.get() == workers.length
+                        && batchesInFlight.get() == 0L
+                        && activations.get() == activationsBefore) {
+                    terminated = true;
+                    return;
+                }
+
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(2 * parkNanos, 100_000L);
+            }
+        }
+    }
+}
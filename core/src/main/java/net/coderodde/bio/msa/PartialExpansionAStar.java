@@ -0,0 +1,143 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class implements Partial Expansion A* (PEA*). Every open list entry of
+ * a node carries a stored f-value {@code F}. Expanding the node inserts only
+ * the children whose f-value equals {@code F}. If there are children with 
+ * larger f-values, the node goes back to the open list with the smallest of
+ * them as its new stored f-value; otherwise the node is closed. Since most 
+ * children of a lattice node have f-values above the optimal cost, they are 
+ * never stored at all.
+ * <p>
+ * All children are still scored on every partial expansion, which the 
+ * Gray code ordering of {@link NeighborCursor} and {@link HopCostEngine} 
+ * make cheap; only the storing is avoided.
+ */
+final class PartialExpansionAStar {
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final HeuristicFunction heuristicFunction;
+    private final SearchStatistics statistics;
+    private final SearchBudget budget;
+
+    PartialExpansionAStar(MultipleSequenceAlignmentInstance instance,
+                          HeuristicFunction heuristicFunction,
+                          SearchStatistics statistics,
+                          SearchBudget budget) {
+        this.instance = instance;
+        this.heuristicFunction = heuristicFunction;
+        this.statistics = statistics;
+        this.budget = budget;
+    }
+
+    Alignment search() {
+        SearchContext context = SearchContext.acquire(instance);
+
+        try {
+            return search(context);
+        } finally {
+            context.release();
+        }
+    }
+
+    private Alignment search(SearchContext context) {
+        LatticeCoordinateCodec codec = context.getCodec();
+        SearchStateTable table = context.getTable();
+        BucketOpenList open = context.getOpen();
+        NeighborCursor cursor = context.getCursor();
+        HopCostEngine hopCostEngine = context.getHopCostEngine();
+        int[] coordinates = context.getCoordinates();
+
+        long sourceKey = 
+                codec.encode(instance.getSourceNode().getCoordinates());
+        long targetKey = 
+                codec.encode(instance.getTargetNode().getCoordinates());
+
+        table.setCost(table.insert(sourceKey), 0, 0);
+        open.push(sourceKey, 
+                  heuristicFunction.get(instance.getSourceNode()), 
+                  0);
+
+        long closedNodes = 0L;
+
+        while (true) {
+            long currentKey = open.pop();
+
+            if (currentKey == targetKey) {
+                statistics.addMemory(table, open);
+                return instance.tracebackPath(
+                        codec, 
+                        table, 
+                        targetKey,
+                        table.getCost(table.find(targetKey)));
+            }
+
+            int currentSlot = table.find(currentKey);
+            int currentCost = table.getCost(currentSlot);
+
+            if (table.isClosed(currentSlot) || open.getLastG() > currentCost) {
+                // A duplicate or an outdated entry.
+                statistics.countDuplicatePop();
+                continue;
+            }
+
+            if (budget.isExceeded(statistics.getExpansions(),
+                                  SearchStatistics.getBytes(table, open)
+                                          + codec.getBytes())) {
+                throw new BudgetExceededException(open.getLastF());
+            }
+
+            statistics.countExpansion();
+            statistics.updatePeaks(open.size() + 1, closedNodes);
+            int storedF = open.getLastF();
+            int nextF = Integer.MAX_VALUE;
+
+            codec.decode(currentKey, coordinates);
+            cursor.loadChildren(coordinates);
+            hopCostEngine.load(coordinates);
+
+            while (cursor.next()) {
+                int weight = hopCostEngine.update(cursor.getFlippedDimension(),
+                                                  cursor.getMove());
+                int[] childCoordinates = cursor.getCoordinates();
+                int tentativeCost = currentCost + weight;
+                int childF = tentativeCost + 
+                             heuristicFunction.get(childCoordinates);
+
+                if (childF < storedF) {
+                    // Generated during an earlier partial expansion.
+                    continue;
+                }
+
+                long childKey = codec.encode(childCoordinates);
+                int childSlot = table.find(childKey);
+
+                if (childSlot != -1 
+                        && (table.isClosed(childSlot) 
+                            || table.getCost(childSlot) <= tentativeCost)) {
+                    // Costs only decrease, so this child will never improve.
+                    continue;
+                }
+
+                if (childF > storedF) {
+                    nextF = Math.min(nextF, childF);
+                    continue;
+                }
+
+                table.setCost(table.insert(childKey), 
+                              tentativeCost, 
+                              cursor.getMove());
+                open.push(childKey, childF, tentativeCost);
+                statistics.countGeneratedNodes(1);
+            }
+
+            if (nextF == Integer.MAX_VALUE) {
+                // All children have been stored.
+                table.setClosed(table.find(currentKey));
+                closedNodes++;
+            } else {
+                open.push(currentKey, nextF, currentCost);
+            }
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class computes alignments of many sequences by progressive alignment.
+ * A guide tree is built by average linkage (UPGMA) over the optimal pairwise
+ * costs, and the profiles of its subtrees are merged bottom-up by
+ * profile-profile dynamic programming under the sum-of-pairs cost. Each merge
+ * is optimal for its two fixed profiles, so the result is not optimal in
+ * general, but the running time is polynomial in the number of sequences
+ * instead of exponential.
+ */
+final class ProgressiveAligner {
+
+    // The moves of the profile-profile dynamic programming:
+    private static final byte MATCH = 0;
+    private static final byte GAP_IN_FIRST = 1;
+    private static final byte GAP_IN_SECOND = 2;
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final AlignmentOptions options;
+    private final SearchStatistics statistics;
+
+    /**
+     * The number of residue codes including the gap code.
+     */
+    private final int codes;
+
+    ProgressiveAligner(MultipleSequenceAlignmentInstance instance,
+                       AlignmentOptions options,
+                       SearchStatistics statistics) {
+        this.instance = instance;
+        this.options = options;
+        this.statistics = statistics;
+        this.codes = instance.getGapCode() + 1;
+    }
+
+    /**
+     * Computes the progressive alignment. Its lower bound is the sum of the
+     * optimal pairwise costs.
+     *
+     * @return the alignment.
+     */
+    Alignment align() {
+        long start = System.nanoTime();
+        int[][] pairwiseCosts =
+                new HeuristicFunctionComputer(options)
+                        .computePairwiseCosts(instance);
+        statistics.addHeuristicBuildNanos(System.nanoTime() - start);
+        return align(pairwiseCosts);
+    }
+
+    /**
+     * Computes the progressive alignment from known optimal pairwise costs.
+     * The pairs of dimensions are weighted by the products of their 
+     * multiplicities, both in the alignment cost and in the lower bound.
+     *
+     * @param pairwiseCosts the symmetric matrix of the pairwise costs.
+     * @return the alignment.
+     */
+    Alignment align(int[][] pairwiseCosts) {
+        int sequences = pairwiseCosts.length;
+        long lowerBound = 0L;
+
+        for (int i = 0; i < sequences; ++i) {
+            for (int j = i + 1; j < sequences; ++j) {
+                lowerBound += (long) instance.getMultiplicity(i) *
+                              instance.getMultiplicity(j) *
+                              pairwiseCosts[i][j];
+            }
+        }
+
+        Profile profile = alignGuideTree(pairwiseCosts);
+        long[][] gapMasks = new long[sequences][];
+
+        for (int i = 0; i < profile.rows.length; ++i) {
+            gapMasks[profile.rows[i]] = profile.gapMasks[i];
+        }
+
+        return new Alignment(instance.getSequenceArray(),
+                             gapMasks,
+                             profile.length,
+                             Math.toIntExact(profile.cost),
+                             Math.toIntExact(Math.min(profile.cost,
+                                                      lowerBound)));
+    }
+
+    /**
+     * Builds the guide tree by UPGMA and merges the profiles in the order
+     * the clusters are joined.
+     */
+    private Profile alignGuideTree(int[][] pairwiseCosts) {
+        int sequences = pairwiseCosts.length;
+        Profile[] clusters = new Profile[sequences];
+        double[][] distances = new double[sequences][sequences];
+        int[] selfCosts = new int[sequences];
+
+        byte[][] encodedSequences = instance.getEncodedSequences();
+
+        for (int i = 0; i < sequences; ++i) {
+            clusters[i] = new Profile(i, encodedSequences[i]);
+            selfCosts[i] = getSelfCost(encodedSequences[i]);
+        }
+
+        // The cost of a pair minus the mean cost of aligning each sequence
+        // with itself, which is zero for identical sequences:
+        for (int i = 0; i < sequences; ++i) {
+            for (int j = i + 1; j < sequences; ++j) {
+                distances[i][j] =
+                distances[j][i] = pairwiseCosts[i][j] -
+                                  0.5 * (selfCosts[i] + selfCosts[j]);
+            }
+        }
+
+        for (int remaining = sequences; remaining > 1; --remaining) {
+            int best1 = -1;
+            int best2 = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+
+            for (int i = 0; i < sequences; ++i) {
+                if (clusters[i] == null) {
+                    continue;
+                }
+
+                for (int j = i + 1; j < sequences; ++j) {
+                    if (clusters[j] != null
+                            && distances[i][j] < bestDistance) {
+                        bestDistance = distances[i][j];
+                        best1 = i;
+                        best2 = j;
+                    }
+                }
+            }
+
+            int size1 = clusters[best1].weight;
+            int size2 = clusters[best2].weight;
+
+            for (int i = 0; i < sequences; ++i) {
+                if (clusters[i] != null && i != best1 && i != best2) {
+                    distances[best1][i] =
+                    distances[i][best1] = (size1 * distances[best1][i] +
+                                           size2 * distances[best2][i]) /
+                                          (size1 + size2);
+                }
+            }
+
+            clusters[best1] = merge(clusters[best1], clusters[best2]);
+            clusters[best2] = null;
+        }
+
+        for (Profile cluster : clusters) {
+            if (cluster != null) {
+                return cluster;
+            }
+        }
+
+        // No sequences at all:
+        return new Profile();
+    }
+
+    private int getSelfCost(byte[] sequence) {
+        int cost = 0;
+
+        for (byte code : sequence) {
+            cost += instance.getResidueCost(code, code);
+        }
+
+        return cost;
+    }
+
+    /**
+     * Aligns two profiles optimally under the sum-of-pairs cost of the
+     * columns, keeping the columns of each profile together.
+     */
+    private Profile merge(Profile profile1, Profile profile2) {
+        int length1 = profile1.length;
+        int length2 = profile2.length;
+        int gapCode = codes - 1;
+
+        // costs1[i][y] is the cost of aligning the ith column of the first
+        // profile with a single residue code y:
+        int[][] costs1 = new int[length1][codes];
+
+        for (int i = 0; i < length1; ++i) {
+            int[] counts = profile1.counts[i];
+
+            for (int x = 0; x < codes; ++x) {
+                if (counts[x] == 0) {
+                    continue;
+                }
+
+                for (int y = 0; y < codes; ++y) {
+                    costs1[i][y] += counts[x] * instance.getResidueCost(x, y);
+                }
+            }
+        }
+
+        // The codes present in each column of the second profile:
+        int[][] presentCodes = new int[length2][];
+
+        for (int j = 0; j < length2; ++j) {
+            int[] counts = profile2.counts[j];
+            int present = 0;
+
+            for (int y = 0; y < codes; ++y) {
+                if (counts[y] != 0) {
+                    present++;
+                }
+            }
+
+            presentCodes[j] = new int[present];
+
+            for (int y = 0, k = 0; y < codes; ++y) {
+                if (counts[y] != 0) {
+                    presentCodes[j][k++] = y;
+                }
+            }
+        }
+
+        int weight1 = profile1.weight;
+        int weight2 = profile2.weight;
+        long[] gapCosts2 = new long[length2];
+
+        for (int j = 0; j < length2; ++j) {
+            gapCosts2[j] = (long) weight1 * instance.getGapPenalty() *
+                           (weight2 - profile2.counts[j][gapCode]);
+        }
+
+        // The dynamic programming over the two profiles, keeping the full
+        // table of moves for the traceback:
+        byte[] moves = new byte[HeuristicFunctionComputer.getTableSize(
+                length1 + 1, 
+                length2 + 1)];
+        long[] row = new long[length2 + 1];
+        long[] previousRow = new long[length2 + 1];
+
+        for (int j = 1; j <= length2; ++j) {
+            previousRow[j] = previousRow[j - 1] + gapCosts2[j - 1];
+            moves[j] = GAP_IN_FIRST;
+        }
+
+        for (int i = 1; i <= length1; ++i) {
+            int[] columnCosts1 = costs1[i - 1];
+            long gapCost1 = (long) weight2 * columnCosts1[gapCode];
+            int offset = i * (length2 + 1);
+            row[0] = previousRow[0] + gapCost1;
+            moves[offset] = GAP_IN_SECOND;
+
+            for (int j = 1; j <= length2; ++j) {
+                int[] counts2 = profile2.counts[j - 1];
+                long columnCost = 0L;
+
+                for (int y : presentCodes[j - 1]) {
+                    columnCost += columnCosts1[y] * counts2[y];
+                }
+
+                long cost = previousRow[j - 1] + columnCost;
+                byte move = MATCH;
+
+                if (previousRow[j] + gapCost1 < cost) {
+                    cost = previousRow[j] + gapCost1;
+                    move = GAP_IN_SECOND;
+                }
+
+                if (row[j - 1] + gapCosts2[j - 1] < cost) {
+                    cost = row[j - 1] + gapCosts2[j - 1];
+                    move = GAP_IN_FIRST;
+                }
+
+                row[j] = cost;
+                moves[offset + j] = move;
+            }
+
+            long[] tmp = row;
+            row = previousRow;
+            previousRow = tmp;
+        }
+
+        return new Profile(profile1,
+                           profile2,
+                           moves,
+                           profile1.cost + profile2.cost +
+                                   previousRow[length2]);
+    }
+
+    /**
+     * This class holds an alignment of a subset of the sequences together
+     * with the residue counts of its columns.
+     */
+    private final class Profile {
+
+        /**
+         * The indices of the sequences in this profile.
+         */
+        final int[] rows;
+
+        /**
+         * The gap masks of the rows, as in {@link Alignment}.
+         */
+        final long[][] gapMasks;
+
+        /**
+         * The number of each residue code, including the gap code, in each
+         * column, counting each row by the multiplicity of its dimension.
+         */
+        final int[][] counts;
+
+        /**
+         * The sum of the multiplicities of the rows.
+         */
+        final int weight;
+
+        final int length;
+
+        /**
+         * The sum-of-pairs cost of this profile.
+         */
+        final long cost;
+
+        /**
+         * Constructs the empty profile of no sequences.
+         */
+        Profile() {
+            this.rows = new int[0];
+            this.gapMasks = new long[0][];
+            this.counts = new int[0][];
+            this.weight = 0;
+            this.length = 0;
+            this.cost = 0L;
+        }
+
+        /**
+         * Constructs the profile of a single sequence.
+         */
+        Profile(int row, byte[] sequence) {
+            this.rows = new int[]{ row };
+            this.length = sequence.length;
+            this.gapMasks = 
+                    new long[][]{ new long[Alignment.getWords(length)] };
+            this.counts = new int[length][codes];
+            this.weight = instance.getMultiplicity(row);
+            this.cost = 0L;
+
+            for (int i = 0; i < length; ++i) {
+                counts[i][sequence[i]] = weight;
+            }
+        }
+
+        /**
+         * Constructs the profile of two merged profiles by tracing back the
+         * moves of their alignment.
+         */
+        Profile(Profile profile1, Profile profile2, byte[] moves, long cost) {
+            int rows1 = profile1.rows.length;
+            int rows2 = profile2.rows.length;
+            int width = profile2.length + 1;
+            int[] columns1 = new int[profile1.length + profile2.length];
+            int[] columns2 = new int[columns1.length];
+            int columns = 0;
+
+            // The merged columns in reverse order, -1 denoting a gap column:
+            for (int i = profile1.length, j = profile2.length;
+                    i > 0 || j > 0;
+                    ++columns) {
+                switch (moves[i * width + j]) {
+                    case MATCH:
+                        columns1[columns] = --i;
+                        columns2[columns] = --j;
+                        break;
+
+                    case GAP_IN_FIRST:
+                        columns1[columns] = -1;
+                        columns2[columns] = --j;
+                        break;
+
+                    default:
+                        columns1[columns] = --i;
+                        columns2[columns] = -1;
+                        break;
+                }
+            }
+
+            this.rows = new int[rows1 + rows2];
+            this.gapMasks = new long[rows.length][Alignment.getWords(columns)];
+            this.counts = new int[columns][codes];
+            this.weight = profile1.weight + profile2.weight;
+            this.length = columns;
+            this.cost = cost;
+            System.arraycopy(profile1.rows, 0, rows, 0, rows1);
+            System.arraycopy(profile2.rows, 0, rows, rows1, rows2);
+
+            for (int column = 0; column < columns; ++column) {
+                int reversed = columns - 1 - column;
+                copyColumn(profile1, columns1[reversed], 0, column);
+                copyColumn(profile2, columns2[reversed], rows1, column);
+            }
+        }
+
+        /**
+         * Copies the column {@code source} of {@code profile}, or a gap
+         * column if {@code source} is -1, to the column {@code target} of
+         * this profile, starting at the row {@code rowOffset}.
+         */
+        private void copyColumn(Profile profile,
+                                int source,
+                                int rowOffset,
+                                int target) {
+            int rows = profile.rows.length;
+            long bit = 1L << target;
+
+            if (source < 0) {
+                counts[target][codes - 1] += profile.weight;
+
+                for (int i = 0; i < rows; ++i) {
+                    gapMasks[rowOffset + i][target >>> 6] |= bit;
+                }
+
+                return;
+            }
+
+            int[] sourceCounts = profile.counts[source];
+
+            for (int code = 0; code < codes; ++code) {
+                counts[target][code] += sourceCounts[code];
+            }
+
+            if (sourceCounts[codes - 1] == 0) {
+                // No row has a gap in the source column.
+                return;
+            }
+
+            long sourceBit = 1L << source;
+
+            for (int i = 0; i < rows; ++i) {
+                if ((profile.gapMasks[i][source >>> 6] & sourceBit) != 0) {
+                    gapMasks[rowOffset + i][target >>> 6] |= bit;
+                }
+            }
+        }
+    }
+}
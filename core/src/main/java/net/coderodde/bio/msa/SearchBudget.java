@@ -0,0 +1,109 @@
+package net.coderodde.bio.msa;
+
+import java.time.Duration;
+
+/**
+ * This class checks the budgets of a single run. The expansion budget is 
+ * checked on every call; the clock, the memory estimate and the cancellation
+ * token only every {@link #CHECK_INTERVAL} calls, so that the check costs 
+ * next to nothing in the hot loop of a search. The memory budget covers the
+ * search structures and the heuristic tables reserved by 
+ * {@link #reserve(long)}. An instance is confined to a single thread, but
+ * for {@link #isExpired()}.
+ */
+final class SearchBudget {
+
+    private static final int CHECK_INTERVAL = 1 << 10;
+
+    /**
+     * The time by {@link System#nanoTime()} at which the run must stop. 
+     * Meaningless if there is no time budget, since the value of 
+     * {@code nanoTime} may be anything, negative numbers included.
+     */
+    private final long deadline;
+    private final boolean hasDeadline;
+    private final long maximumExpansions;
+    private final long maximumBytes;
+    private final CancellationToken cancellationToken;
+    private int calls;
+
+    SearchBudget(AlignmentOptions options) {
+        Duration timeBudget = options.getTimeBudget();
+        this.hasDeadline = timeBudget != null;
+        this.deadline = hasDeadline ?
+                        System.nanoTime() + 
+                                Math.min(timeBudget.toNanos(), 
+                                         Long.MAX_VALUE / 4) :
+                        0L;
+        this.maximumExpansions = options.getExpansionBudget();
+        this.maximumBytes = options.getMemoryBudget();
+        this.cancellationToken = options.getCancellationToken();
+    }
+
+    private SearchBudget(SearchBudget budget, 
+                         long maximumExpansions, 
+                         long maximumBytes) {
+        this.deadline = budget.deadline;
+        this.hasDeadline = budget.hasDeadline;
+        this.maximumExpansions = maximumExpansions;
+        this.maximumBytes = maximumBytes;
+        this.cancellationToken = budget.cancellationToken;
+    }
+
+    /**
+     * Returns a budget for one of {@code parts} concurrent parts of the same 
+     * search. The expansion and memory budgets are divided evenly.
+     */
+    SearchBudget split(int parts) {
+        return new SearchBudget(this, 
+                                maximumExpansions / parts, 
+                                maximumBytes / parts);
+    }
+
+    /**
+     * Returns this budget less {@code bytes} bytes of memory, to be taken by
+     * the heuristic tables of the run before the search starts.
+     * 
+     * @throws BudgetExceededException if the memory budget is smaller.
+     */
+    SearchBudget reserve(long bytes) {
+        if (bytes > maximumBytes) {
+            throw new BudgetExceededException(
+                    BudgetExceededException.NO_LOWER_BOUND);
+        }
+
+        return new SearchBudget(this, maximumExpansions, maximumBytes - bytes);
+    }
+
+    /**
+     * Returns {@code true} if the time budget is exceeded or the run is 
+     * cancelled. Unlike {@link #isExceeded(long, long)}, this keeps no state,
+     * so the tasks building the heuristic tables may call it from any thread.
+     */
+    boolean isExpired() {
+        return (hasDeadline && System.nanoTime() - deadline >= 0L)
+                || (cancellationToken != null 
+                    && cancellationToken.isCancelled());
+    }
+
+    /**
+     * Returns {@code true} if the search must stop.
+     * 
+     * @param expansions the number of expansions so far.
+     * @param bytes      the estimated size of the search structures.
+     * @return {@code true} if a budget is exceeded.
+     */
+    boolean isExceeded(long expansions, long bytes) {
+        if (expansions >= maximumExpansions) {
+            return true;
+        }
+
+        // The first call checks everything, so that a run started after the
+        // cancellation or the deadline stops at once.
+        if ((calls++ & (CHECK_INTERVAL - 1)) != 0) {
+            return false;
+        }
+
+        return bytes > maximumBytes || isExpired();
+    }
+}
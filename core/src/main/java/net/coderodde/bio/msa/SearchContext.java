@@ -0,0 +1,126 @@
+package net.coderodde.bio.msa;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class holds the mutable state of a single search over an instance: the
+ * coordinate codec, the state table, the open list and the scratch objects
+ * for expanding nodes. Instances and cost matrices hold no mutable state, so
+ * any number of searches may run on them concurrently, each in its own
+ * context.
+ * <p>
+ * The state tables and open lists are the part worth reusing, since they
+ * grow by repeated reallocation. Released ones go to a lock-free pool shared
+ * by all instances, unless they grew larger than
+ * {@link #MAXIMUM_POOLED_BYTES}. A context must be released exactly once and
+ * not used afterwards.
+ */
+final class SearchContext {
+
+    private static final int MAXIMUM_POOL_SIZE =
+            Runtime.getRuntime().availableProcessors();
+
+    private static final long MAXIMUM_POOLED_BYTES = 1L << 24;
+
+    private static final Queue<Structures> POOL =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of structures in the pool. Counting separately spares the
+     * linear-time {@link ConcurrentLinkedQueue#size()}.
+     */
+    private static final AtomicInteger POOL_SIZE = new AtomicInteger();
+
+    private final Structures structures;
+    private final LatticeCoordinateCodec codec;
+    private final NeighborCursor cursor;
+    private final HopCostEngine hopCostEngine;
+    private final int[] coordinates;
+
+    private SearchContext(MultipleSequenceAlignmentInstance instance,
+                          Structures structures) {
+        this.structures = structures;
+        this.codec = LatticeCoordinateCodec.create(instance);
+        this.cursor = new NeighborCursor(instance);
+        this.hopCostEngine = new HopCostEngine(instance);
+        this.coordinates = new int[instance.getSequenceCount()];
+    }
+
+    /**
+     * Returns a context for a search over {@code instance}, reusing a pooled
+     * state table and open list if there is one.
+     *
+     * @param instance the instance to search.
+     * @return the context.
+     */
+    static SearchContext acquire(MultipleSequenceAlignmentInstance instance) {
+        Structures structures = POOL.poll();
+
+        if (structures == null) {
+            structures = new Structures();
+        } else {
+            POOL_SIZE.decrementAndGet();
+        }
+
+        return new SearchContext(instance, structures);
+    }
+
+    /**
+     * Returns the state table and the open list of this context to the pool.
+     */
+    void release() {
+        SearchStateTable table = structures.table;
+        BucketOpenList open = structures.open;
+
+        if (table.getBytes() + open.getCapacityBytes() > MAXIMUM_POOLED_BYTES) {
+            return;
+        }
+
+        if (POOL_SIZE.incrementAndGet() > MAXIMUM_POOL_SIZE) {
+            POOL_SIZE.decrementAndGet();
+            return;
+        }
+
+        table.clear();
+        open.clear();
+        POOL.offer(structures);
+    }
+
+    LatticeCoordinateCodec getCodec() {
+        return codec;
+    }
+
+    SearchStateTable getTable() {
+        return structures.table;
+    }
+
+    BucketOpenList getOpen() {
+        return structures.open;
+    }
+
+    NeighborCursor getCursor() {
+        return cursor;
+    }
+
+    HopCostEngine getHopCostEngine() {
+        return hopCostEngine;
+    }
+
+    /**
+     * Returns a scratch buffer of one coordinate per dimension.
+     */
+    int[] getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * This class holds the reusable structures of a context.
+     */
+    private static final class Structures {
+
+        final SearchStateTable table = new SearchStateTable();
+        final BucketOpenList open = new BucketOpenList();
+    }
+}
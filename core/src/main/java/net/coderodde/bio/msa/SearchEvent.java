@@ -0,0 +1,37 @@
+package net.coderodde.bio.msa;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This JFR event spans a complete alignment run, heuristic included, and 
+ * carries its main statistics. It is recorded only when a flight recording 
+ * enables it.
+ */
+@Name("net.coderodde.bio.msa.Search")
+@Label("Alignment Search")
+@Category({"Sequence Alignment"})
+@Description("A complete alignment run")
+final class SearchEvent extends Event {
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Sequences")
+    int sequences;
+
+    @Label("Expansions")
+    long expansions;
+
+    @Label("Generated Nodes")
+    long generatedNodes;
+
+    @Label("Peak Open Size")
+    long peakOpenSize;
+
+    @Label("Cost")
+    int cost;
+}
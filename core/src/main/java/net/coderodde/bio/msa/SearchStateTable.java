@@ -0,0 +1,202 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an open-addressing hash table mapping lattice node
+ * keys to their search state: the best known cost from the source node, the
+ * move via which that cost was attained, and a closed flag. A move is a bit
+ * mask in which the ith bit is set if and only if the move advances in the
+ * ith dimension.
+ * <p>
+ * The state of a node is accessed through its slot index. Slot indices stay
+ * valid until the next call to {@link #insert(long)}, which may rehash the
+ * table.
+ */
+final class SearchStateTable {
+
+    /**
+     * The cost of a node that has not been reached yet.
+     */
+    static final int UNREACHED = Integer.MAX_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long EMPTY = -1L;
+    private static final byte CLOSED = 1;
+    private static final byte INCONSISTENT = 2;
+
+    private long[] keys;
+    private int[] costs;
+    private int[] parentMoves;
+    private byte[] flags;
+    private int size;
+    private int maximumSize;
+
+    SearchStateTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns the slot of the node with key {@code key}, or {@code -1} if the
+     * node is not in this table.
+     *
+     * @param key the key of a lattice node.
+     * @return the slot index or {@code -1}.
+     */
+    int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the slot of the node with key {@code key}, adding the node as
+     * unreached if it is not yet in this table.
+     *
+     * @param key the key of a lattice node.
+     * @return the slot index.
+     */
+    int insert(long key) {
+        if (size == maximumSize) {
+            rehash();
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        costs[slot] = UNREACHED;
+        size++;
+        return slot;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes taken by the arrays of this table.
+     */
+    long getBytes() {
+        return (long) keys.length * 
+               (Long.BYTES + 2 * Integer.BYTES + Byte.BYTES);
+    }
+
+    long getKey(int slot) {
+        return keys[slot];
+    }
+
+    int getCost(int slot) {
+        return costs[slot];
+    }
+
+    int getParentMove(int slot) {
+        return parentMoves[slot];
+    }
+
+    boolean isClosed(int slot) {
+        return (flags[slot] & CLOSED) != 0;
+    }
+
+    void setCost(int slot, int cost, int parentMove) {
+        costs[slot] = cost;
+        parentMoves[slot] = parentMove;
+    }
+
+    void setClosed(int slot) {
+        flags[slot] |= CLOSED;
+    }
+
+    void setOpen(int slot) {
+        flags[slot] &= ~CLOSED;
+    }
+
+    /**
+     * Returns {@code true} if the cost of the node decreased after the node 
+     * was closed. Used by anytime search.
+     * 
+     * @param slot the slot of a node.
+     * @return {@code true} if the node is inconsistent.
+     */
+    boolean isInconsistent(int slot) {
+        return (flags[slot] & INCONSISTENT) != 0;
+    }
+
+    void setInconsistent(int slot) {
+        flags[slot] |= INCONSISTENT;
+    }
+
+    /**
+     * Removes all nodes, keeping the capacity for reuse.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(flags, (byte) 0);
+        size = 0;
+    }
+
+    /**
+     * Clears the closed and inconsistent flags of all nodes.
+     */
+    void clearFlags() {
+        Arrays.fill(flags, (byte) 0);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        costs = new int[capacity];
+        parentMoves = new int[capacity];
+        flags = new byte[capacity];
+        maximumSize = capacity / 4 * 3;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCosts = costs;
+        int[] oldParentMoves = parentMoves;
+        byte[] oldFlags = flags;
+
+        allocate(2 * oldKeys.length);
+        int mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+
+            int slot = hash(oldKeys[i]) & mask;
+
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            costs[slot] = oldCosts[i];
+            parentMoves[slot] = oldParentMoves[i];
+            flags[slot] = oldFlags[i];
+        }
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int)(key ^ (key >>> 32));
+    }
+}
@@ -0,0 +1,237 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class holds the statistics of a single alignment run. The counters 
+ * are filled by the search while it runs; callers only read them.
+ */
+public final class SearchStatistics {
+
+    /**
+     * The statistics of alignments not produced by a complete run.
+     */
+    static final SearchStatistics EMPTY = new SearchStatistics();
+
+    /**
+     * The estimated size of an open list entry in bytes.
+     */
+    private static final int OPEN_ENTRY_BYTES = Long.BYTES;
+
+    private long expansions;
+    private long generatedNodes;
+    private long reopenings;
+    private long duplicatePops;
+    private long prunedNodes;
+    private long peakOpenSize;
+    private long peakClosedSize;
+    private long heuristicBuildNanos;
+    private long searchNanos;
+    private long bytes;
+    private long storedNodes;
+    private boolean budgetExceeded;
+
+    /**
+     * Returns the number of node expansions, including repeated expansions of
+     * reopened nodes.
+     * 
+     * @return the number of expansions.
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Returns the number of children generated by the expansions.
+     * 
+     * @return the number of generated nodes.
+     */
+    public long getGeneratedNodes() {
+        return generatedNodes;
+    }
+
+    /**
+     * Returns the number of times a closed node was reached by a cheaper path
+     * and had to be expanded again.
+     * 
+     * @return the number of reopenings.
+     */
+    public long getReopenings() {
+        return reopenings;
+    }
+
+    /**
+     * Returns the number of open list entries popped and discarded because 
+     * their node was already expanded or reached by a cheaper path.
+     * 
+     * @return the number of duplicate pops.
+     */
+    public long getDuplicatePops() {
+        return duplicatePops;
+    }
+
+    /**
+     * Returns the number of generated nodes discarded by upper bound pruning
+     * instead of being stored.
+     * 
+     * @return the number of pruned nodes.
+     */
+    public long getPrunedNodes() {
+        return prunedNodes;
+    }
+
+    public long getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    public long getPeakClosedSize() {
+        return peakClosedSize;
+    }
+
+    /**
+     * Returns the time spent computing the heuristic and, with upper bound
+     * pruning, the quick alignment giving the upper bound.
+     * 
+     * @return the heuristic build time in nanoseconds.
+     */
+    public long getHeuristicBuildNanos() {
+        return heuristicBuildNanos;
+    }
+
+    /**
+     * Returns the time spent searching, excluding the heuristic 
+     * computation.
+     * 
+     * @return the search time in nanoseconds.
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * Returns the estimated memory of the search structures divided by the 
+     * number of nodes they hold, at the end of the search.
+     * 
+     * @return the bytes per stored node.
+     */
+    public double getBytesPerNode() {
+        return storedNodes == 0L ? 0.0 : (double) bytes / storedNodes;
+    }
+
+    /**
+     * Returns {@code true} if the run stopped because a budget was exceeded 
+     * or the run was cancelled. The alignment of such a run is a fallback 
+     * whose lower bound is the best one proven before stopping.
+     * 
+     * @return {@code true} if the run was stopped early.
+     */
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    void countExpansion() {
+        expansions++;
+    }
+
+    void countGeneratedNodes(int count) {
+        generatedNodes += count;
+    }
+
+    void countReopening() {
+        reopenings++;
+    }
+
+    void countDuplicatePop() {
+        duplicatePops++;
+    }
+
+    void countPrunedNode() {
+        prunedNodes++;
+    }
+
+    void updatePeaks(long openSize, long closedSize) {
+        peakOpenSize = Math.max(peakOpenSize, openSize);
+        peakClosedSize = Math.max(peakClosedSize, closedSize);
+    }
+
+    void addHeuristicBuildNanos(long nanos) {
+        heuristicBuildNanos += nanos;
+    }
+
+    void setSearchNanos(long searchNanos) {
+        this.searchNanos = searchNanos;
+    }
+
+    /**
+     * Records the memory of the structures of a finished search. Adds up over
+     * the subsearches of a run.
+     */
+    void addMemory(SearchStateTable table, BucketOpenList open) {
+        bytes += getBytes(table, open);
+        storedNodes += table.size();
+    }
+
+    void addMemory(FrontierTable table, BucketOpenList open) {
+        bytes += getBytes(table, open);
+        storedNodes += table.size();
+    }
+
+    void setBudgetExceeded() {
+        budgetExceeded = true;
+    }
+
+    /**
+     * Returns the estimated size of the given search structures in bytes.
+     */
+    static long getBytes(SearchStateTable table, BucketOpenList open) {
+        return table.getBytes() + (long) open.size() * OPEN_ENTRY_BYTES;
+    }
+
+    static long getBytes(FrontierTable table, BucketOpenList open) {
+        return table.getBytes() + (long) open.size() * OPEN_ENTRY_BYTES;
+    }
+
+    /**
+     * Adds the counters of a concurrent part of the same search. The peaks 
+     * add up, since the parts hold their nodes at the same time.
+     */
+    void add(SearchStatistics other) {
+        expansions += other.expansions;
+        generatedNodes += other.generatedNodes;
+        reopenings += other.reopenings;
+        duplicatePops += other.duplicatePops;
+        prunedNodes += other.prunedNodes;
+        peakOpenSize += other.peakOpenSize;
+        peakClosedSize += other.peakClosedSize;
+        bytes += other.bytes;
+        storedNodes += other.storedNodes;
+        budgetExceeded |= other.budgetExceeded;
+    }
+
+    /**
+     * Adds the counters of a separate subsearch of the same run, such as a 
+     * box of an anchored alignment. The peaks are the maximum over the 
+     * subsearches, since these need not hold their nodes at the same time.
+     */
+    void addSubsearch(SearchStatistics other) {
+        long openSize = Math.max(peakOpenSize, other.peakOpenSize);
+        long closedSize = Math.max(peakClosedSize, other.peakClosedSize);
+        add(other);
+        peakOpenSize = openSize;
+        peakClosedSize = closedSize;
+    }
+
+    @Override
+    public String toString() {
+        return "Expansions: " + expansions + 
+               "\nGenerated nodes: " + generatedNodes +
+               "\nReopenings: " + reopenings +
+               "\nDuplicate pops: " + duplicatePops +
+               "\nPruned nodes: " + prunedNodes +
+               "\nPeak open size: " + peakOpenSize +
+               "\nPeak closed size: " + peakClosedSize +
+               "\nHeuristic build time: " + 
+               heuristicBuildNanos / 1_000_000L + " ms" +
+               "\nSearch time: " + searchNanos / 1_000_000L + " ms" +
+               String.format("\nBytes per node: %.1f", getBytesPerNode()) +
+               (budgetExceeded ? "\nBudget exceeded" : "");
+    }
+}
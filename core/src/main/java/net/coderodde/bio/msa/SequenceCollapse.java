@@ -0,0 +1,255 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+
+/**
+ * This class collapses the groups of identical sequences of an instance, and
+ * optionally of sequences of equal length differing in a few substitutions,
+ * into single dimensions weighted by the sizes of the groups. An alignment of
+ * the collapsed instance is expanded by giving every member of a group the
+ * row of the group.
+ * <p>
+ * The pairs within a group of identical sequences align every residue with
+ * itself, at a cost independent of the rest of the alignment, so the
+ * expanded cost is the collapsed cost plus a constant. Hence an optimal
+ * collapsed alignment is optimal among the alignments giving identical
+ * sequences identical rows. It is optimal overall unless some sequence
+ * aligns more cheaply with itself than residue by residue; the lower bound
+ * is lowered by that difference for every pair within a group.
+ */
+final class SequenceCollapse {
+
+    private final MultipleSequenceAlignmentInstance instance;
+    private final MultipleSequenceAlignmentInstance collapsedInstance;
+
+    /**
+     * The group, that is, the collapsed dimension, of each sequence.
+     */
+    private final int[] groups;
+
+    /**
+     * The first sequence of each group, standing for the whole group.
+     */
+    private final int[] representatives;
+
+    /**
+     * Whether every sequence equals the representative of its group.
+     */
+    private final boolean exact;
+
+    private SequenceCollapse(MultipleSequenceAlignmentInstance instance,
+                             int[] groups,
+                             int[] representatives,
+                             int[] multiplicities,
+                             boolean exact) {
+        this.instance = instance;
+        this.groups = groups;
+        this.representatives = representatives;
+        this.exact = exact;
+        this.collapsedInstance =
+                instance.getCollapsedInstance(representatives,
+                                              multiplicities);
+    }
+
+    /**
+     * Groups the sequences of {@code instance}. A sequence joins the first
+     * group whose representative has the same length and differs from it in
+     * at most {@code maximumSubstitutions} positions.
+     *
+     * @param instance             the instance to collapse.
+     * @param maximumSubstitutions the maximum number of differing positions.
+     * @return the collapse, or {@code null} if no two sequences are grouped.
+     */
+    static SequenceCollapse create(MultipleSequenceAlignmentInstance instance,
+                                   int maximumSubstitutions) {
+        byte[][] sequences = instance.getEncodedSequences();
+        int[] groups = new int[sequences.length];
+        int[] representatives = new int[sequences.length];
+        int[] multiplicities = new int[sequences.length];
+        int groupCount = 0;
+        boolean exact = true;
+
+        for (int i = 0; i < sequences.length; ++i) {
+            int group = -1;
+            int substitutions = 0;
+
+            for (int g = 0; g < groupCount && group < 0; ++g) {
+                substitutions = getSubstitutions(sequences[representatives[g]],
+                                                 sequences[i],
+                                                 maximumSubstitutions);
+
+                if (substitutions <= maximumSubstitutions) {
+                    group = g;
+                }
+            }
+
+            if (group < 0) {
+                group = groupCount++;
+                representatives[group] = i;
+            } else {
+                exact &= substitutions == 0;
+            }
+
+            groups[i] = group;
+            multiplicities[group]++;
+        }
+
+        if (groupCount == sequences.length) {
+            return null;
+        }
+
+        return new SequenceCollapse(
+                instance,
+                groups,
+                Arrays.copyOf(representatives, groupCount),
+                Arrays.copyOf(multiplicities, groupCount),
+                exact);
+    }
+
+    MultipleSequenceAlignmentInstance getCollapsedInstance() {
+        return collapsedInstance;
+    }
+
+    /**
+     * Expands an alignment of the collapsed instance into an alignment of
+     * the instance, carrying the statistics of the collapsed run.
+     *
+     * @param alignment the alignment of the collapsed instance.
+     * @param options   the options for computing the lower bound.
+     * @return the expanded alignment.
+     */
+    Alignment expand(Alignment alignment, AlignmentOptions options) {
+        int length = alignment.getLength();
+        long[][] gapMasks = new long[groups.length][Alignment.getWords(length)];
+
+        for (int i = 0; i < groups.length; ++i) {
+            for (int column = 0; column < length; ++column) {
+                if (alignment.isGap(groups[i], column)) {
+                    gapMasks[i][column >>> 6] |= 1L << column;
+                }
+            }
+        }
+
+        int cost = getCost(gapMasks, length);
+        long lowerBound = exact ?
+                          (long) alignment.getLowerBound() +
+                                  cost - alignment.getCost() -
+                                  getSelfAlignmentSlack(options) :
+                          getPairwiseLowerBound(options);
+
+        return new Alignment(instance.getSequenceArray(),
+                             gapMasks,
+                             length,
+                             cost,
+                             Math.toIntExact(Math.min(cost, lowerBound)))
+                .withStatistics(alignment.getStatistics());
+    }
+
+    /**
+     * Returns the number of positions in which two sequences of equal length
+     * differ, or a number greater than {@code maximum} if they differ in
+     * more positions or in length.
+     */
+    private static int getSubstitutions(byte[] sequence1,
+                                        byte[] sequence2,
+                                        int maximum) {
+        if (sequence1.length != sequence2.length) {
+            return maximum + 1;
+        }
+
+        int substitutions = 0;
+
+        for (int i = 0; i < sequence1.length && substitutions <= maximum; ++i) {
+            if (sequence1[i] != sequence2[i]) {
+                substitutions++;
+            }
+        }
+
+        return substitutions;
+    }
+
+    /**
+     * Returns the sum-of-pairs cost of the alignment of the instance given by
+     * the gap masks.
+     */
+    private int getCost(long[][] gapMasks, int length) {
+        byte[][] sequences = instance.getEncodedSequences();
+        int[] positions = new int[sequences.length];
+        int[] codes = new int[sequences.length];
+        long cost = 0L;
+
+        for (int column = 0; column < length; ++column) {
+            long bit = 1L << column;
+
+            for (int i = 0; i < sequences.length; ++i) {
+                codes[i] = (gapMasks[i][column >>> 6] & bit) != 0 ?
+                           instance.getGapCode() :
+                           sequences[i][positions[i]++];
+            }
+
+            for (int i = 0; i < codes.length; ++i) {
+                for (int j = i + 1; j < codes.length; ++j) {
+                    cost += instance.getResidueCost(codes[i], codes[j]);
+                }
+            }
+        }
+
+        return Math.toIntExact(cost);
+    }
+
+    /**
+     * Returns by how much the pairs within the groups could align more
+     * cheaply than residue by residue: for each group of {@code m} sequences,
+     * {@code m * (m - 1) / 2} times the difference between the cost of
+     * aligning the representative with itself residue by residue and the
+     * optimal cost of aligning it with itself.
+     */
+    private long getSelfAlignmentSlack(AlignmentOptions options) {
+        byte[][] sequences = instance.getEncodedSequences();
+        HeuristicFunctionComputer computer =
+                new HeuristicFunctionComputer(options);
+        long slack = 0L;
+
+        for (int group = 0; group < representatives.length; ++group) {
+            long multiplicity = collapsedInstance.getMultiplicity(group);
+
+            if (multiplicity == 1) {
+                continue;
+            }
+
+            int representative = representatives[group];
+            long selfCost = 0L;
+
+            for (byte code : sequences[representative]) {
+                selfCost += instance.getResidueCost(code, code);
+            }
+
+            int optimalSelfCost =
+                    computer.computePairwiseCosts(
+                            instance.getCollapsedInstance(
+                                    new int[]{ representative,
+                                               representative },
+                                    new int[]{ 1, 1 }))[0][1];
+
+            slack += multiplicity * (multiplicity - 1) / 2 *
+                     (selfCost - optimalSelfCost);
+        }
+
+        return slack;
+    }
+
+    private long getPairwiseLowerBound(AlignmentOptions options) {
+        int[][] pairwiseCosts =
+                new HeuristicFunctionComputer(options)
+                        .computePairwiseCosts(instance);
+        long lowerBound = 0L;
+
+        for (int i = 0; i < pairwiseCosts.length; ++i) {
+            for (int j = i + 1; j < pairwiseCosts.length; ++j) {
+                lowerBound += pairwiseCosts[i][j];
+            }
+        }
+
+        return lowerBound;
+    }
+}
@@ -0,0 +1,145 @@
+package net.coderodde.bio.msa;
+
+/**
+ * This class holds the exact three-way heuristic table of a triple of 
+ * dimensions. The entry at {@code (x * (m2 + 1) + y) * (m3 + 1) + z}, where 
+ * {@code m2} and {@code m3} are the lengths of the second and third sequence 
+ * of the triple, holds the optimal sum-of-pairs cost of aligning the three 
+ * suffixes starting at {@code x}, {@code y} and {@code z}.
+ * <p>
+ * The table is computed in full on construction rather than lazily. The 
+ * first lookup, at the source node, needs the entry of the origin, which 
+ * depends on every other entry, so a lazy table would be complete after its
+ * first lookup anyway, and its lookups would need synchronization in the 
+ * parallel searches. Triple tables are built only if 
+ * {@link AlignmentOptions#withTripleHeuristicMemory(long)} asks for them, 
+ * and are charged to the memory budget before they are built.
+ */
+final class TripleTable {
+
+    private final int dimension1;
+    private final int dimension2;
+    private final int dimension3;
+    private final int rowLength2;
+    private final int rowLength3;
+    private final int[] table;
+
+    /**
+     * Computes the table of the given dimensions.
+     * 
+     * @param instance   the instance.
+     * @param sequences  the residue codes of the instance.
+     * @param dimension1 the first dimension.
+     * @param dimension2 the second dimension.
+     * @param dimension3 the third dimension.
+     */
+    TripleTable(MultipleSequenceAlignmentInstance instance,
+                byte[][] sequences,
+                int dimension1,
+                int dimension2,
+                int dimension3) {
+        this.dimension1 = dimension1;
+        this.dimension2 = dimension2;
+        this.dimension3 = dimension3;
+        this.rowLength2 = sequences[dimension2].length + 1;
+        this.rowLength3 = sequences[dimension3].length + 1;
+        this.table = compute(instance, 
+                             sequences[dimension1], 
+                             sequences[dimension2], 
+                             sequences[dimension3]);
+    }
+
+    /**
+     * Returns the number of entries in the table of the given dimensions.
+     */
+    static long getVolume(MultipleSequenceAlignmentInstance instance,
+                          int dimension1,
+                          int dimension2,
+                          int dimension3) {
+        return (instance.getSequenceLength(dimension1) + 1L) *
+               (instance.getSequenceLength(dimension2) + 1L) *
+               (instance.getSequenceLength(dimension3) + 1L);
+    }
+
+    boolean covers(int dimension) {
+        return dimension == dimension1 || 
+               dimension == dimension2 || 
+               dimension == dimension3;
+    }
+
+    int get(int[] coordinates) {
+        return table[(coordinates[dimension1] * rowLength2 + 
+                      coordinates[dimension2]) * rowLength3 + 
+                     coordinates[dimension3]];
+    }
+
+    // Fills the 3D-grid of the triple by the three-way alignment recurrence,
+    // starting from the target corner. The cost of a column is the sum of the
+    // costs of its three pairs, the gap code taking care of the gaps.
+    private int[] compute(MultipleSequenceAlignmentInstance instance,
+                          byte[] sequence1,
+                          byte[] sequence2,
+                          byte[] sequence3) {
+        int gap = instance.getGapCode();
+        int planeLength = rowLength2 * rowLength3;
+        int[] result = new int[HeuristicFunctionComputer.getTableSize(
+                sequence1.length + 1, 
+                planeLength)];
+
+        for (int x = sequence1.length; x >= 0; --x) {
+            boolean advance1 = x < sequence1.length;
+            int code1 = advance1 ? sequence1[x] : gap;
+
+            for (int y = sequence2.length; y >= 0; --y) {
+                boolean advance2 = y < sequence2.length;
+                int code2 = advance2 ? sequence2[y] : gap;
+                int cost12 = instance.getResidueCost(code1, code2);
+                int cost1g = instance.getResidueCost(code1, gap);
+                int costg2 = instance.getResidueCost(gap, code2);
+
+                for (int z = sequence3.length; z >= 0; --z) {
+                    int index = (x * rowLength2 + y) * rowLength3 + z;
+
+                    if (!advance1 && !advance2 && z == sequence3.length) {
+                        // The target corner.
+                        continue;
+                    }
+
+                    boolean advance3 = z < sequence3.length;
+                    int code3 = advance3 ? sequence3[z] : gap;
+                    int cost = Integer.MAX_VALUE;
+
+                    for (int move = 1; move < 8; ++move) {
+                        boolean move1 = (move & 1) != 0;
+                        boolean move2 = (move & 2) != 0;
+                        boolean move3 = (move & 4) != 0;
+
+                        if ((move1 && !advance1) ||
+                            (move2 && !advance2) ||
+                            (move3 && !advance3)) {
+                            continue;
+                        }
+
+                        int c1 = move1 ? code1 : gap;
+                        int c2 = move2 ? code2 : gap;
+                        int c3 = move3 ? code3 : gap;
+                        int hop = (move1 ? (move2 ? cost12 : cost1g)
+                                         : (move2 ? costg2 : 0)) +
+                                  instance.getResidueCost(c1, c3) +
+                                  instance.getResidueCost(c2, c3);
+                        int next = index +
+                                   (move1 ? planeLength : 0) +
+                                   (move2 ? rowLength3 : 0) +
+                                   (move3 ? 1 : 0);
+
+                        cost = Math.min(cost, result[next] + hop);
+                    }
+
+                    result[index] = cost;
+                }
+            }
+        }
+
+        return result;
+    }
+}
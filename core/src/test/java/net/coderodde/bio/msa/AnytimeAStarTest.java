@@ -0,0 +1,70 @@
+package net.coderodde.bio.msa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnytimeAStarTest {
+
+    private static final CostMatrix<Integer> DNA = 
+            NucleotideCostMatrix.getDNACostMatrix();
+
+    private static final CostMatrix<Integer> PAM250 = 
+            PAM250CostMatrix.getPAM250CostMatrix();
+
+    @Test
+    void weightedCostMatchesRowsAfterReopening() {
+        String[] sequences = { "CAACAC", "CGACAGTT" };
+        Alignment alignment = 
+                new MultipleSequenceAlignmentInstance(DNA, 1, sequences)
+                        .alignWeighted(0.5);
+
+        assertEquals(ReferenceAligner.score(DNA, 1, alignment, sequences),
+                     alignment.getCost());
+    }
+
+    @Test
+    void anytimeSolutionsMatchRowsAndBounds() {
+        Random random = new Random(1L);
+
+        for (int round = 0; round < 30; ++round) {
+            CostMatrix<Integer> costMatrix = round % 2 == 0 ? DNA : PAM250;
+            String letters = round % 2 == 0 ? "ACGT" : "ACDEFGHIKLMNPQRSTVWY";
+            int gapPenalty = 1 + random.nextInt(6);
+            String[] sequences = 
+                    ReferenceAligner.getRandomSequences(random, 
+                                                        letters, 
+                                                        2 + round % 3, 
+                                                        1, 
+                                                        9);
+            int optimum = ReferenceAligner.getOptimalCost(costMatrix, 
+                                                          gapPenalty, 
+                                                          sequences);
+            List<Alignment> solutions = new ArrayList<>();
+            Alignment last = 
+                    new MultipleSequenceAlignmentInstance(costMatrix, 
+                                                          gapPenalty, 
+                                                          sequences)
+                            .alignAnytime(2.0, solutions::add);
+
+            assertFalse(solutions.isEmpty());
+            assertEquals(optimum, last.getCost());
+
+            for (Alignment solution : solutions) {
+                assertEquals(ReferenceAligner.score(costMatrix, 
+                                                    gapPenalty, 
+                                                    solution, 
+                                                    sequences),
+                             solution.getCost());
+                assertTrue(solution.getLowerBound() <= optimum);
+                assertTrue(solution.getCost() >= optimum);
+            }
+        }
+    }
+}
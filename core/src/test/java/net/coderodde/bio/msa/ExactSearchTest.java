@@ -0,0 +1,106 @@
+package net.coderodde.bio.msa;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExactSearchTest {
+
+    private static final CostMatrix<Integer> PAM250 = 
+            PAM250CostMatrix.getPAM250CostMatrix();
+
+    private static final CostMatrix<Integer> DNA = 
+            NucleotideCostMatrix.getDNACostMatrix();
+
+    @Test
+    void aStarIsOptimal() {
+        checkOptimal(MultipleSequenceAlignmentInstance::align);
+    }
+
+    @Test
+    void prunedAStarIsOptimal() {
+        AlignmentOptions options = AlignmentOptions.getDefaultOptions()
+                                                   .withUpperBoundPruning(true);
+        checkOptimal(instance -> instance.align(options));
+    }
+
+    @Test
+    void tripleHeuristicAStarIsOptimal() {
+        AlignmentOptions options = AlignmentOptions.getDefaultOptions()
+                .withTripleHeuristicMemory(1L << 20);
+        checkOptimal(instance -> instance.align(options));
+    }
+
+    @Test
+    void prunedTripleHeuristicAStarIsOptimal() {
+        AlignmentOptions options = AlignmentOptions.getDefaultOptions()
+                .withTripleHeuristicMemory(1L << 20)
+                .withUpperBoundPruning(true);
+        checkOptimal(instance -> instance.align(options));
+    }
+
+    @Test
+    void partialExpansionAStarIsOptimal() {
+        checkOptimal(
+                MultipleSequenceAlignmentInstance::alignPartialExpansion);
+    }
+
+    @Test
+    void frontierSearchIsOptimal() {
+        checkOptimal(MultipleSequenceAlignmentInstance::alignFrontier);
+    }
+
+    @Test
+    void parallelAStarIsOptimal() {
+        checkOptimal(instance -> instance.alignParallel(3));
+    }
+
+    @Test
+    void dijkstraClaimsNoBound() {
+        String[] sequences = { "TS", "S" };
+        Alignment alignment = 
+                new MultipleSequenceAlignmentInstance(PAM250, 4, sequences)
+                        .alignBrute();
+
+        assertEquals(ReferenceAligner.score(PAM250, 4, alignment, sequences),
+                     alignment.getCost());
+        assertTrue(alignment.getLowerBound() <= 
+                   ReferenceAligner.getOptimalCost(PAM250, 4, sequences));
+    }
+
+    private static void checkOptimal(
+            Function<MultipleSequenceAlignmentInstance, Alignment> aligner) {
+        Random random = new Random(7L);
+
+        for (int round = 0; round < 24; ++round) {
+            boolean protein = round % 2 == 0;
+            CostMatrix<Integer> costMatrix = protein ? PAM250 : DNA;
+            int gapPenalty = 1 + random.nextInt(8);
+            String[] sequences = ReferenceAligner.getRandomSequences(
+                    random,
+                    protein ? "ACDEFGHIKLMNPQRSTVWY" : "ACGT",
+                    2 + round % 3,
+                    0,
+                    8);
+            Alignment alignment = aligner.apply(
+                    new MultipleSequenceAlignmentInstance(costMatrix, 
+                                                          gapPenalty, 
+                                                          sequences));
+
+            assertEquals(ReferenceAligner.getOptimalCost(costMatrix, 
+                                                         gapPenalty, 
+                                                         sequences),
+                         alignment.getCost());
+            assertEquals(ReferenceAligner.score(costMatrix, 
+                                                gapPenalty, 
+                                                alignment, 
+                                                sequences),
+                         alignment.getCost());
+            assertEquals(alignment.getCost(), alignment.getLowerBound());
+        }
+    }
+}
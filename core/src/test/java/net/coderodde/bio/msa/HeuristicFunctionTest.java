@@ -0,0 +1,160 @@
+package net.coderodde.bio.msa;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeuristicFunctionTest {
+
+    private static final CostMatrix<Integer> PAM250 = 
+            PAM250CostMatrix.getPAM250CostMatrix();
+
+    private static final AlignmentOptions PAIRWISE = 
+            AlignmentOptions.getDefaultOptions();
+
+    private static final AlignmentOptions TRIPLE = 
+            AlignmentOptions.getDefaultOptions()
+                    .withTripleHeuristicMemory(1L << 20);
+
+    @Test
+    void tripleHeuristicIsAdmissibleConsistentAndTighter() {
+        Random random = new Random(11L);
+
+        for (int round = 0; round < 6; ++round) {
+            int gapPenalty = 1 + random.nextInt(8);
+            String[] sequences = ReferenceAligner.getRandomSequences(
+                    random,
+                    "ACDEFGHIKLMNPQRSTVWY",
+                    3 + round % 2,
+                    2,
+                    5);
+            MultipleSequenceAlignmentInstance instance = 
+                    new MultipleSequenceAlignmentInstance(PAM250, 
+                                                          gapPenalty, 
+                                                          sequences);
+            HeuristicFunction pairwise = getHeuristicFunction(instance, 
+                                                              PAIRWISE);
+            HeuristicFunction triple = getHeuristicFunction(instance, TRIPLE);
+            int[] coordinates = new int[sequences.length];
+            boolean tighter = false;
+
+            do {
+                String[] suffixes = new String[sequences.length];
+
+                for (int i = 0; i < suffixes.length; ++i) {
+                    suffixes[i] = sequences[i].substring(coordinates[i]);
+                }
+
+                int remainingCost = 
+                        ReferenceAligner.getOptimalCost(PAM250, 
+                                                        gapPenalty, 
+                                                        suffixes);
+
+                assertTrue(pairwise.get(coordinates) <= 
+                           triple.get(coordinates));
+                assertTrue(triple.get(coordinates) <= remainingCost);
+                checkConsistent(instance, triple, coordinates);
+                tighter |= pairwise.get(coordinates) < 
+                           triple.get(coordinates);
+            } while (increment(coordinates, sequences));
+
+            assertTrue(tighter);
+        }
+    }
+
+    @Test
+    void coveredPairsHaveNoTables() {
+        String[] sequences = { "ACDEF", "GHIK", "LMNPQR", "STVW" };
+        MultipleSequenceAlignmentInstance instance = 
+                new MultipleSequenceAlignmentInstance(PAM250, 4, sequences);
+        HeuristicFunction hf = getHeuristicFunction(instance, TRIPLE);
+        int tables = 0;
+        long entries = 0L;
+
+        for (int i = 0; i < sequences.length; ++i) {
+            for (int j = i + 1; j < sequences.length; ++j) {
+                if (hf.hasPartial(i, j)) {
+                    tables++;
+                    entries += (sequences[i].length() + 1L) * 
+                               (sequences[j].length() + 1L);
+                }
+            }
+        }
+
+        // The three shortest sequences form the only triple:
+        assertEquals(3, tables);
+        assertFalse(hf.hasPartial(1, 3));
+        entries += 5L * 5L * 6L;
+        assertEquals(entries * Integer.BYTES, 
+                     instance.getHeuristicBytes(TRIPLE));
+    }
+
+    @Test
+    void tablesTooLargeForAnArrayAreRejected() {
+        // (46341 + 1)^2 entries exceed Integer.MAX_VALUE:
+        char[] residues = new char[46341];
+        Arrays.fill(residues, 'A');
+        String sequence = new String(residues);
+        MultipleSequenceAlignmentInstance instance = 
+                new MultipleSequenceAlignmentInstance(PAM250, 
+                                                      4, 
+                                                      sequence, 
+                                                      sequence);
+
+        assertThrows(IllegalArgumentException.class, instance::align);
+        assertThrows(IllegalArgumentException.class, 
+                     () -> HeuristicFunctionComputer.getTableSize(65536, 
+                                                                  32768));
+        assertEquals(46340 * 46340, 
+                     HeuristicFunctionComputer.getTableSize(46340, 46340));
+    }
+
+    private static HeuristicFunction getHeuristicFunction(
+            MultipleSequenceAlignmentInstance instance,
+            AlignmentOptions options) {
+        return instance.computeHeuristicFunction(options, 
+                                                 new SearchStatistics(), 
+                                                 new SearchBudget(options));
+    }
+
+    private static void checkConsistent(
+            MultipleSequenceAlignmentInstance instance,
+            HeuristicFunction hf,
+            int[] coordinates) {
+        int[] child = new int[coordinates.length];
+
+        for (int move = 1; move < (1 << coordinates.length); ++move) {
+            boolean valid = true;
+
+            for (int i = 0; i < coordinates.length; ++i) {
+                child[i] = coordinates[i] + ((move >>> i) & 1);
+                valid &= child[i] <= instance.getSequenceLength(i);
+            }
+
+            if (valid) {
+                assertTrue(hf.get(coordinates) <= 
+                           instance.getWeight(coordinates, child) + 
+                           hf.get(child));
+            }
+        }
+    }
+
+    private static boolean increment(int[] coordinates, String[] sequences) {
+        for (int i = 0; i < coordinates.length; ++i) {
+            if (coordinates[i] < sequences[i].length()) {
+                coordinates[i]++;
+                return true;
+            }
+
+            coordinates[i] = 0;
+        }
+
+        return false;
+    }
+}
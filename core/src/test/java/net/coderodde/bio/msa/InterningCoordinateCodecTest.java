@@ -0,0 +1,92 @@
+package net.coderodde.bio.msa;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InterningCoordinateCodecTest {
+
+    @Test
+    void keysDecodeToTheirCoordinates() {
+        InterningCoordinateCodec codec = new InterningCoordinateCodec(4, 8);
+        Random random = new Random(3L);
+        int[][] vectors = new int[5000][4];
+        long[] keys = new long[vectors.length];
+        int[] coordinates = new int[4];
+
+        for (int i = 0; i < vectors.length; ++i) {
+            for (int j = 0; j < 4; ++j) {
+                vectors[i][j] = random.nextInt(1000);
+            }
+
+            keys[i] = codec.encode(vectors[i]);
+        }
+
+        for (int i = 0; i < vectors.length; ++i) {
+            assertEquals(keys[i], codec.encode(vectors[i]));
+            codec.decode(keys[i], coordinates);
+            assertArrayEquals(vectors[i], coordinates);
+        }
+    }
+
+    @Test
+    void releasedKeysAreReused() {
+        InterningCoordinateCodec codec = new InterningCoordinateCodec(3, 1);
+        int[] coordinates = new int[3];
+        long initialBytes = codec.getBytes();
+        long previousKey = -1L;
+
+        // Walk a path keeping only the last node, as frontier search does:
+        for (int i = 0; i < 100000; ++i) {
+            coordinates[i % 3]++;
+            long key = codec.encode(coordinates);
+            codec.retain(key);
+
+            if (previousKey != -1L) {
+                codec.release(previousKey);
+            }
+
+            assertTrue(key < 2L);
+            previousKey = key;
+        }
+
+        assertEquals(initialBytes, codec.getBytes());
+        codec.decode(previousKey, coordinates);
+        assertArrayEquals(new int[]{ 33334, 33333, 33333 }, coordinates);
+    }
+
+    @Test
+    void searchesOnInternedLatticesAreOptimal() {
+        // The lattice of 8 sequences of length 250 does not fit in a long:
+        Random random = new Random(5L);
+        String base = ReferenceAligner.getRandomSequences(
+                random, "ACGT", 1, 250, 250)[0];
+        String[] sequences = new String[8];
+
+        for (int i = 0; i < sequences.length; ++i) {
+            char[] chars = base.toCharArray();
+            chars[random.nextInt(chars.length)] = 'A';
+            sequences[i] = new String(chars);
+        }
+
+        CostMatrix<Integer> costMatrix =
+                NucleotideCostMatrix.getDNACostMatrix();
+        MultipleSequenceAlignmentInstance instance =
+                new MultipleSequenceAlignmentInstance(costMatrix, 2, sequences);
+
+        assertTrue(LatticeCoordinateCodec.create(instance)
+                   instanceof InterningCoordinateCodec);
+
+        Alignment frontier = instance.alignFrontier();
+        int cost = instance.align().getCost();
+
+        assertEquals(cost, frontier.getCost());
+        assertEquals(cost, instance.alignParallel(3).getCost());
+        assertEquals(ReferenceAligner.score(costMatrix, 2, frontier, sequences),
+                     frontier.getCost());
+    }
+}
@@ -0,0 +1,152 @@
+package net.coderodde.bio.msa;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class computes the optimal alignment costs the searches are checked 
+ * against by dynamic programming over the whole lattice, and scores the rows
+ * of alignments from the cost matrix, independently of the code under test.
+ */
+final class ReferenceAligner {
+
+    private static final char GAP = AminoAcidAlphabet.GAP_CHARACTER;
+
+    private ReferenceAligner() {}
+
+    /**
+     * Returns the optimal sum-of-pairs cost of aligning the sequences.
+     */
+    static int getOptimalCost(CostMatrix<Integer> costMatrix,
+                              int gapPenalty,
+                              String... sequences) {
+        int dimensions = sequences.length;
+        int[] radices = new int[dimensions];
+        int nodes = 1;
+
+        for (int i = 0; i < dimensions; ++i) {
+            radices[i] = nodes;
+            nodes *= sequences[i].length() + 1;
+        }
+
+        int[] costs = new int[nodes];
+        int[] coordinates = new int[dimensions];
+        char[] column = new char[dimensions];
+
+        // A node follows all of its predecessors in index order:
+        for (int node = 1; node < nodes; ++node) {
+            for (int i = 0, rest = node; i < dimensions; ++i) {
+                coordinates[i] = rest % (sequences[i].length() + 1);
+                rest /= sequences[i].length() + 1;
+            }
+
+            int best = Integer.MAX_VALUE;
+
+            for (int move = 1; move < (1 << dimensions); ++move) {
+                int predecessor = node;
+                boolean valid = true;
+
+                for (int i = 0; i < dimensions; ++i) {
+                    if ((move & (1 << i)) == 0) {
+                        column[i] = GAP;
+                    } else if (coordinates[i] == 0) {
+                        valid = false;
+                        break;
+                    } else {
+                        column[i] = sequences[i].charAt(coordinates[i] - 1);
+                        predecessor -= radices[i];
+                    }
+                }
+
+                if (valid) {
+                    best = Math.min(best, 
+                                    costs[predecessor] + 
+                                    getColumnCost(costMatrix, 
+                                                  gapPenalty, 
+                                                  column));
+                }
+            }
+
+            costs[node] = best;
+        }
+
+        return costs[nodes - 1];
+    }
+
+    /**
+     * Returns the sum-of-pairs cost of the rows of the alignment, checking 
+     * that the rows spell the given sequences.
+     */
+    static int score(CostMatrix<Integer> costMatrix,
+                     int gapPenalty,
+                     Alignment alignment,
+                     String... sequences) {
+        String[] rows = alignment.getAlignemnt();
+        assertEquals(sequences.length, rows.length);
+
+        for (int i = 0; i < rows.length; ++i) {
+            assertEquals(sequences[i], 
+                         rows[i].replace(String.valueOf(GAP), ""));
+        }
+
+        char[] column = new char[rows.length];
+        int cost = 0;
+
+        for (int j = 0; j < alignment.getLength(); ++j) {
+            for (int i = 0; i < rows.length; ++i) {
+                column[i] = rows[i].charAt(j);
+            }
+
+            cost += getColumnCost(costMatrix, gapPenalty, column);
+        }
+
+        return cost;
+    }
+
+    /**
+     * Returns {@code count} random sequences over the given letters with 
+     * lengths between {@code minimumLength} and {@code maximumLength}.
+     */
+    static String[] getRandomSequences(Random random,
+                                       String letters,
+                                       int count,
+                                       int minimumLength,
+                                       int maximumLength) {
+        String[] sequences = new String[count];
+
+        for (int i = 0; i < count; ++i) {
+            int length = minimumLength + 
+                         random.nextInt(maximumLength - minimumLength + 1);
+            StringBuilder sb = new StringBuilder(length);
+
+            for (int j = 0; j < length; ++j) {
+                sb.append(letters.charAt(random.nextInt(letters.length())));
+            }
+
+            sequences[i] = sb.toString();
+        }
+
+        return sequences;
+    }
+
+    private static int getColumnCost(CostMatrix<Integer> costMatrix,
+                                     int gapPenalty,
+                                     char[] column) {
+        int cost = 0;
+
+        for (int i = 0; i < column.length; ++i) {
+            for (int j = i + 1; j < column.length; ++j) {
+                if (column[i] == GAP && column[j] == GAP) {
+                    continue;
+                }
+
+                cost += column[i] == GAP || column[j] == GAP ?
+                        gapPenalty :
+                        costMatrix.getCost(column[i], column[j]);
+            }
+        }
+
+        return cost;
+    }
+}
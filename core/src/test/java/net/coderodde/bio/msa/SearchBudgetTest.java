@@ -0,0 +1,107 @@
+package net.coderodde.bio.msa;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchBudgetTest {
+
+    private static final CostMatrix<Integer> PAM250 = 
+            PAM250CostMatrix.getPAM250CostMatrix();
+
+    private static final int GAP_PENALTY = 4;
+
+    private static final String[] SEQUENCES = 
+            ReferenceAligner.getRandomSequences(new Random(3L), 
+                                                "ACDEFGHIKLMNPQRSTVWY", 
+                                                3, 
+                                                30, 
+                                                40);
+
+    private static final int OPTIMUM = 
+            ReferenceAligner.getOptimalCost(PAM250, GAP_PENALTY, SEQUENCES);
+
+    @Test
+    void noBudgetFindsOptimum() {
+        Alignment alignment = getInstance().align();
+
+        assertFalse(alignment.getStatistics().isBudgetExceeded());
+        assertEquals(OPTIMUM, alignment.getCost());
+    }
+
+    @Test
+    void expansionBudgetFallsBack() {
+        AlignmentOptions options = AlignmentOptions.getDefaultOptions()
+                                                   .withExpansionBudget(10L);
+        checkFallback(instance -> instance.align(options));
+        checkFallback(instance -> instance.alignBrute(options));
+        checkFallback(instance -> instance.alignFrontier(options));
+        checkFallback(instance -> instance.alignPartialExpansion(options));
+        checkFallback(instance -> instance.alignWeighted(0.5, options));
+        checkFallback(instance -> instance.alignParallel(2, options));
+    }
+
+    @Test
+    void heuristicTablesOverMemoryBudgetFallBack() {
+        // The pairwise tables alone take more than this:
+        AlignmentOptions options = AlignmentOptions.getDefaultOptions()
+                                                   .withMemoryBudget(1000L);
+        Alignment alignment = 
+                checkFallback(instance -> instance.align(options));
+
+        assertEquals(0L, alignment.getStatistics().getExpansions());
+    }
+
+    @Test
+    void searchOverMemoryBudgetFallsBack() {
+        MultipleSequenceAlignmentInstance instance = getInstance();
+        AlignmentOptions options = 
+                AlignmentOptions.getDefaultOptions()
+                        .withMemoryBudget(
+                                instance.getHeuristicBytes(
+                                        AlignmentOptions.getDefaultOptions()) 
+                                + 100L);
+        Alignment alignment = checkFallback(i -> i.align(options));
+
+        assertTrue(alignment.getLowerBound() > Integer.MIN_VALUE);
+    }
+
+    @Test
+    void expiredBudgetsFallBack() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        checkFallback(instance -> instance.align(
+                AlignmentOptions.getDefaultOptions()
+                        .withCancellationToken(token)));
+        checkFallback(instance -> instance.align(
+                AlignmentOptions.getDefaultOptions()
+                        .withTimeBudget(Duration.ZERO)));
+    }
+
+    private static MultipleSequenceAlignmentInstance getInstance() {
+        return new MultipleSequenceAlignmentInstance(PAM250, 
+                                                     GAP_PENALTY, 
+                                                     SEQUENCES);
+    }
+
+    private static Alignment checkFallback(
+            Function<MultipleSequenceAlignmentInstance, Alignment> aligner) {
+        Alignment alignment = aligner.apply(getInstance());
+
+        assertTrue(alignment.getStatistics().isBudgetExceeded());
+        assertEquals(ReferenceAligner.score(PAM250, 
+                                            GAP_PENALTY, 
+                                            alignment, 
+                                            SEQUENCES),
+                     alignment.getCost());
+        assertTrue(alignment.getCost() >= OPTIMUM);
+        assertTrue(alignment.getLowerBound() <= OPTIMUM);
+        return alignment;
+    }
+}